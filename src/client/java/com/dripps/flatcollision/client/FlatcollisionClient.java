@@ -1,23 +1,37 @@
 package com.dripps.flatcollision.client;
 
+import com.dripps.flatcollision.FlatcollisionConfig;
+import com.dripps.flatcollision.client.debug.ParticleDebugCommand;
+import com.dripps.flatcollision.client.debug.ParticleDebugHudEntry;
 import com.dripps.flatcollision.client.particle.FlatParticleEngine;
+import com.dripps.flatcollision.engine.PhysicsEngine;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.client.world.ClientWorld;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * client side entry point. initializes ring buffer particle engine
- * and registers cleanup hooks.
+ * client side entry point. initializes ring buffer particle engine, keeps a
+ * {@link PhysicsEngine} for the current client world in sync with client
+ * entity events, and registers cleanup hooks.
  */
 public class FlatcollisionClient implements ClientModInitializer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("FlatCollision/Client");
 
+    /** world the client engine belongs to, client thread only */
+    @Nullable
+    private static ClientWorld engineWorld;
+
     @Override
     public void onInitializeClient() {
         LOGGER.info("[FlatCollision] starting client side particle engine");
 
+        FlatcollisionConfig.load();
         FlatParticleEngine.INSTANCE.initialize();
 
         ClientTickEvents.START_CLIENT_TICK.register(client -> {
@@ -26,6 +40,71 @@ public class FlatcollisionClient implements ClientModInitializer {
             }
         });
 
+        // chunk data packets replace sections without block updates
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+            FlatParticleEngine.INSTANCE.onChunkChanged(chunk.getPos().x, chunk.getPos().z);
+        });
+
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+            FlatParticleEngine.INSTANCE.onChunkChanged(chunk.getPos().x, chunk.getPos().z);
+        });
+
+        if (FlatcollisionConfig.clientEngine) {
+            registerClientEngine();
+        }
+
+        ParticleDebugHudEntry.register();
+        ParticleDebugCommand.register();
+
         LOGGER.info("[FlatCollision] client side particle engine initialized and hooks registered and stuff and things and whatnot and all that good jazz and also some more words to make this log message longer and more descriptive and informative and maybe even a little bit entertaining too");
     }
+
+    /**
+     * mirrors the server hooks for the client world. entity load events for a
+     * new world can arrive before its first tick, so both paths switch the
+     * engine over to the current world.
+     */
+    private static void registerClientEngine() {
+        ClientEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            switchEngineWorld(world).trackEntity(entity);
+        });
+
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            PhysicsEngine engine = PhysicsEngine.get(world);
+            if (engine != null) {
+                engine.untrackEntity(entity);
+            }
+        });
+
+        ClientTickEvents.START_CLIENT_TICK.register(client -> {
+            if (client.world == null) {
+                switchEngineWorld(null);
+                return;
+            }
+            switchEngineWorld(client.world).onTickStart();
+        });
+
+        ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            if (client.world != null) {
+                PhysicsEngine engine = PhysicsEngine.get(client.world);
+                if (engine != null) {
+                    engine.onTickEnd();
+                }
+            }
+        });
+
+        LOGGER.info("[FlatCollision] client world physics engine hooks registered");
+    }
+
+    /** drops the engine of the previous client world and returns the one for world */
+    @Nullable
+    private static PhysicsEngine switchEngineWorld(@Nullable ClientWorld world) {
+        if (world != engineWorld) {
+            if (engineWorld != null) {
+                PhysicsEngine.remove(engineWorld);
+            }
+            engineWorld = world;
+        }
+        return world != null ? PhysicsEngine.getOrCreate(world) : null;
+    }
 }
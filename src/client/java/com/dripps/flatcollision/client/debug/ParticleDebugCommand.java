@@ -0,0 +1,28 @@
+package com.dripps.flatcollision.client.debug;
+
+import com.dripps.flatcollision.client.particle.FlatParticleEngine;
+import com.mojang.brigadier.Command;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** client command /flatparticles printing the same counters as the F3 section */
+public final class ParticleDebugCommand {
+
+    private ParticleDebugCommand() {}
+
+    public static void register() {
+        ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) ->
+                dispatcher.register(ClientCommandManager.literal("flatparticles").executes(ctx -> {
+                    List<String> lines = new ArrayList<>();
+                    FlatParticleEngine.INSTANCE.debugLines(lines);
+                    for (String line : lines) {
+                        ctx.getSource().sendFeedback(Text.literal(line));
+                    }
+                    return Command.SINGLE_SUCCESS;
+                })));
+    }
+}
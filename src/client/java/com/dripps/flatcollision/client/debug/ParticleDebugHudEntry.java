@@ -0,0 +1,37 @@
+package com.dripps.flatcollision.client.debug;
+
+import com.dripps.flatcollision.client.particle.FlatParticleEngine;
+import net.minecraft.client.gui.hud.debug.DebugHudEntries;
+import net.minecraft.client.gui.hud.debug.DebugHudEntry;
+import net.minecraft.client.gui.hud.debug.DebugHudLines;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * F3 section with particle engine counters. shows up in the debug options
+ * screen as flatcollision:particles and is off until enabled there.
+ */
+public final class ParticleDebugHudEntry implements DebugHudEntry {
+
+    public static final Identifier ID = Identifier.of("flatcollision", "particles");
+
+    /** reused between frames, render runs on the client thread only */
+    private final List<String> lines = new ArrayList<>();
+
+    public static void register() {
+        DebugHudEntries.register(ID, new ParticleDebugHudEntry());
+    }
+
+    @Override
+    public void render(DebugHudLines out, @Nullable World world,
+                       @Nullable WorldChunk clientChunk, @Nullable WorldChunk chunk) {
+        lines.clear();
+        FlatParticleEngine.INSTANCE.debugLines(lines);
+        out.addLinesToSection(ID, lines);
+    }
+}
@@ -0,0 +1,190 @@
+package com.dripps.flatcollision.client.particle;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * per chunk section bitset of full cube blocks for particle collision. a
+ * section is scanned once, the first time a particle lands in it, then every
+ * collision test is a single bit lookup. sections are dropped on block updates
+ * and chunk load/unload. client thread only, except {@link #snapshotView()}
+ * lookups which may run on workers while nothing writes the cache.
+ */
+public final class BlockSolidityCache implements RingBuffer.BlockCollisionTest {
+
+    /** 16^3 bits per section */
+    private static final int SECTION_WORDS = 4096 / Long.SIZE;
+
+    /** shared bitset for empty sections, never written */
+    private static final long[] EMPTY = new long[SECTION_WORDS];
+
+    /** cached sections beyond this clear the whole cache, 1024 is 512 KB */
+    private static final int MAX_SECTIONS = 1024;
+
+    /** sentinel for a section that is not loaded, never cached */
+    private static final long[] UNLOADED = new long[0];
+
+    private final Long2ObjectOpenHashMap<long[]> sections = new Long2ObjectOpenHashMap<>();
+    private final BlockPos.Mutable scanPos = new BlockPos.Mutable();
+
+    @Nullable
+    private ClientWorld world;
+
+    /** last section hit, particles are spatially coherent */
+    private long lastKey = Long.MIN_VALUE;
+    private long[] lastBits;
+
+    /** binds cache to world, clears it when the world changed */
+    public void setWorld(@Nullable ClientWorld world) {
+        if (this.world != world) {
+            this.world = world;
+            clear();
+        }
+    }
+
+    @Override
+    public boolean isSolid(float x, float y, float z) {
+        int bx = (int) Math.floor(x);
+        int by = (int) Math.floor(y);
+        int bz = (int) Math.floor(z);
+
+        long key = ChunkSectionPos.asLong(bx >> 4, by >> 4, bz >> 4);
+        long[] bits;
+        if (key == lastKey) {
+            bits = lastBits;
+        } else {
+            bits = sections.get(key);
+            if (bits == null) {
+                bits = build(bx >> 4, by >> 4, bz >> 4);
+                if (bits == UNLOADED) return false;
+                if (sections.size() >= MAX_SECTIONS) sections.clear();
+                sections.put(key, bits);
+            }
+            lastKey = key;
+            lastBits = bits;
+        }
+
+        return testBit(bits, bx, by, bz);
+    }
+
+    /** section key of the block containing a particle position */
+    public static long sectionKey(float x, float y, float z) {
+        return ChunkSectionPos.asLong(
+                (int) Math.floor(x) >> 4, (int) Math.floor(y) >> 4, (int) Math.floor(z) >> 4);
+    }
+
+    private static boolean testBit(long[] bits, int bx, int by, int bz) {
+        int index = ((by & 15) << 8) | ((bz & 15) << 4) | (bx & 15);
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * builds every missing section in keys on the client thread, so a
+     * following snapshot phase can stay read only.
+     */
+    public void prepare(LongSet keys) {
+        int missing = 0;
+        for (LongIterator it = keys.iterator(); it.hasNext(); ) {
+            if (!sections.containsKey(it.nextLong())) missing++;
+        }
+        if (missing == 0) return;
+        if (sections.size() + missing > MAX_SECTIONS) clear();
+
+        for (LongIterator it = keys.iterator(); it.hasNext(); ) {
+            long key = it.nextLong();
+            if (sections.containsKey(key)) continue;
+            long[] bits = build(ChunkSectionPos.unpackX(key), ChunkSectionPos.unpackY(key), ChunkSectionPos.unpackZ(key));
+            if (bits != UNLOADED) sections.put(key, bits);
+        }
+    }
+
+    /**
+     * read only lookup with its own memo, one per worker task. never builds,
+     * sections missing from {@link #prepare} count as not solid.
+     */
+    public RingBuffer.BlockCollisionTest snapshotView() {
+        return new RingBuffer.BlockCollisionTest() {
+            private long memoKey = Long.MIN_VALUE;
+            private long[] memoBits;
+
+            @Override
+            public boolean isSolid(float x, float y, float z) {
+                int bx = (int) Math.floor(x);
+                int by = (int) Math.floor(y);
+                int bz = (int) Math.floor(z);
+
+                long key = ChunkSectionPos.asLong(bx >> 4, by >> 4, bz >> 4);
+                if (key != memoKey) {
+                    memoBits = sections.get(key);
+                    memoKey = key;
+                }
+                return memoBits != null && testBit(memoBits, bx, by, bz);
+            }
+        };
+    }
+
+    /** drops the section containing pos, called after a client block change */
+    public void invalidate(BlockPos pos) {
+        long key = ChunkSectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+        sections.remove(key);
+        if (key == lastKey) lastKey = Long.MIN_VALUE;
+    }
+
+    /** drops every section of a chunk column, called on chunk load and unload */
+    public void invalidateChunk(int chunkX, int chunkZ) {
+        if (sections.isEmpty()) return;
+        sections.keySet().removeIf((long key) ->
+                ChunkSectionPos.unpackX(key) == chunkX && ChunkSectionPos.unpackZ(key) == chunkZ);
+        lastKey = Long.MIN_VALUE;
+    }
+
+    public void clear() {
+        sections.clear();
+        lastKey = Long.MIN_VALUE;
+        lastBits = null;
+    }
+
+    public int cachedSectionCount() {
+        return sections.size();
+    }
+
+    private long[] build(int sx, int sy, int sz) {
+        ClientWorld w = world;
+        if (w == null) return UNLOADED;
+
+        WorldChunk chunk = w.getChunkManager().getWorldChunk(sx, sz);
+        if (chunk == null) return UNLOADED;
+
+        int sectionIndex = chunk.sectionCoordToIndex(sy);
+        ChunkSection[] array = chunk.getSectionArray();
+        if (sectionIndex < 0 || sectionIndex >= array.length) return EMPTY;
+
+        ChunkSection section = array[sectionIndex];
+        if (section.isEmpty()) return EMPTY;
+
+        long[] bits = new long[SECTION_WORDS];
+        int baseX = sx << 4, baseY = sy << 4, baseZ = sz << 4;
+        for (int ly = 0; ly < 16; ly++) {
+            for (int lz = 0; lz < 16; lz++) {
+                for (int lx = 0; lx < 16; lx++) {
+                    BlockState state = section.getBlockState(lx, ly, lz);
+                    if (state.isAir()) continue;
+                    scanPos.set(baseX + lx, baseY + ly, baseZ + lz);
+                    if (state.isFullCube(w, scanPos)) {
+                        int index = (ly << 8) | (lz << 4) | lx;
+                        bits[index >>> 6] |= 1L << index;
+                    }
+                }
+            }
+        }
+        return bits;
+    }
+}
@@ -1,25 +1,29 @@
 package com.dripps.flatcollision.client.particle;
 
-import net.minecraft.block.BlockState;
+import com.dripps.flatcollision.FlatcollisionConfig;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.Entity;
 import net.minecraft.util.math.BlockPos;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
 /**
  * fire and forget particle engine using ring buffers. particles are stateless
  * visual noise with zero GC (ring buffers overwrite old data), batch collision
- * checks, and sector based spatial grouping.
+ * checks against a cached section solidity bitset, and sector based spatial
+ * grouping.
  */
 public final class FlatParticleEngine {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("FlatCollision/Particles");
 
-    /** default particle gravity in blocks per tick squared */
-    private static final float DEFAULT_GRAVITY = -0.04f;
-
     /** default particle lifetime in ticks */
     private static final int DEFAULT_LIFETIME = 40;
 
@@ -28,33 +32,79 @@ public final class FlatParticleEngine {
     private FlatParticleEngine() {}
 
     private final SectorGrid sectorGrid = new SectorGrid();
+    private final BlockSolidityCache solidity = new BlockSolidityCache();
     private boolean initialized = false;
 
+    /** mirrored particles staged between ticks, packed xyz */
+    private static final int STAGE_CAPACITY = 1024;
+    private final float[] stagedPos = new float[STAGE_CAPACITY * 3];
+    private final float[] stagedVel = new float[STAGE_CAPACITY * 3];
+    private int stagedCount;
+
+    /** debug counters of the last tick */
+    private long lastTickNanos, lastCollideNanos;
+    private long lastOverwritten, lastEvicted;
+    private int overwritesLastTick;
+    private int evictionsLastTick;
+    private boolean lastParallel;
+
+    /** workers for parallel sector ticking, created on first use */
+    @Nullable
+    private ForkJoinPool workers;
+
     public void initialize() {
         if (initialized) return;
         initialized = true;
         LOGGER.info("[FlatCollision] particle engine started sir (sectors={}, ringCap={})",
-                SectorGrid.SECTOR_SIZE, 2048);
+                SectorGrid.SECTOR_SIZE, SectorGrid.INITIAL_RING_CAPACITY);
     }
 
     public void shutdown() {
+        stagedCount = 0;
         sectorGrid.clearAll();
+        solidity.setWorld(null);
         initialized = false;
     }
 
     /**
      * adds particle to ring buffer. called alongside vanilla particle manager
-     * for collision tracking.
+     * for collision tracking. particles are staged and written in bulk at the
+     * next tick, so explosion and firework bursts resolve their sector once.
      */
     public void addParticle(double x, double y, double z,
                             double vx, double vy, double vz) {
-        addParticle(x, y, z, vx, vy, vz, DEFAULT_LIFETIME);
+        if (!initialized) return;
+        int base = stagedCount * 3;
+        stagedPos[base]     = (float) x;
+        stagedPos[base + 1] = (float) y;
+        stagedPos[base + 2] = (float) z;
+        stagedVel[base]     = (float) vx;
+        stagedVel[base + 1] = (float) vy;
+        stagedVel[base + 2] = (float) vz;
+        if (++stagedCount == STAGE_CAPACITY) flushStaged();
+    }
+
+    /**
+     * emits count particles from packed xyz position and velocity arrays,
+     * ordered so same sector particles are adjacent for best results. returns
+     * number of particles stored after LOD and budget.
+     */
+    public int addParticles(float[] pos, float[] vel, int count, int lifetime) {
+        if (!initialized) return 0;
+        return sectorGrid.emitBulk(pos, vel, count, lifetime);
+    }
+
+    private void flushStaged() {
+        if (stagedCount == 0) return;
+        sectorGrid.emitBulk(stagedPos, stagedVel, stagedCount, DEFAULT_LIFETIME);
+        stagedCount = 0;
     }
 
     public void addParticle(double x, double y, double z,
                             double vx, double vy, double vz,
                             int lifetime) {
         if (!initialized) return;
+        if (!sectorGrid.admit(x, y, z)) return;
         sectorGrid.emit(x, y, z, (float) vx, (float) vy, (float) vz, lifetime);
     }
 
@@ -64,20 +114,68 @@ public final class FlatParticleEngine {
      */
     public void tick() {
         if (!initialized) return;
+        flushStaged();
 
         ClientWorld world = getClientWorld();
+        ForkJoinPool pool = parallelPool();
+
+        Entity camera = getCameraEntity();
+        if (camera != null) {
+            sectorGrid.setCamera(camera.getX(), camera.getY(), camera.getZ());
+        } else {
+            sectorGrid.clearCamera();
+        }
 
-        sectorGrid.tick(DEFAULT_GRAVITY);
+        long start = System.nanoTime();
+        sectorGrid.tick(pool);
+        long ticked = System.nanoTime();
 
         if (world != null) {
-            final ClientWorld w = world;
-            final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
-            sectorGrid.batchCollideBlocks((x, y, z) -> {
-                mutablePos.set((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
-                BlockState state = w.getBlockState(mutablePos);
-                return !state.isAir() && state.isFullCube(w, mutablePos);
-            });
+            solidity.setWorld(world);
+            sectorGrid.batchCollideBlocks(solidity, pool);
         }
+        long collided = System.nanoTime();
+
+        lastTickNanos = ticked - start;
+        lastCollideNanos = collided - ticked;
+        lastParallel = pool != null;
+
+        long overwritten = sectorGrid.overwrittenCount();
+        long evicted = sectorGrid.evictedCount();
+        overwritesLastTick = (int) (overwritten - lastOverwritten);
+        evictionsLastTick = (int) (evicted - lastEvicted);
+        lastOverwritten = overwritten;
+        lastEvicted = evicted;
+    }
+
+    /** pool for this tick, null when parallel mode is off or the scene is small */
+    @Nullable
+    private ForkJoinPool parallelPool() {
+        if (!FlatcollisionConfig.particleParallel) return null;
+        if (sectorGrid.totalAlive() < FlatcollisionConfig.particleParallelThreshold) return null;
+
+        ForkJoinPool pool = workers;
+        if (pool == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            pool = new ForkJoinPool(threads, p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("FlatCollision Particle Worker-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+            workers = pool;
+            LOGGER.info("[FlatCollision] parallel particle ticking on {} workers", threads);
+        }
+        return pool;
+    }
+
+    /** drops cached solidity around a changed block */
+    public void onBlockChanged(BlockPos pos) {
+        solidity.invalidate(pos);
+    }
+
+    /** drops cached solidity of a loaded or unloaded chunk */
+    public void onChunkChanged(int chunkX, int chunkZ) {
+        solidity.invalidateChunk(chunkX, chunkZ);
     }
 
     public int totalAliveParticles() {
@@ -88,6 +186,31 @@ public final class FlatParticleEngine {
         return sectorGrid.sectorCount();
     }
 
+    public long droppedEmits() {
+        return sectorGrid.droppedEmits();
+    }
+
+    /** appends human readable engine counters, shared by debug HUD and command */
+    public void debugLines(List<String> out) {
+        out.add(String.format(Locale.ROOT, "Flat particles: %d alive, %d sectors (%d pooled), %d/%d slots, %.1f MB",
+                sectorGrid.totalAlive(), sectorGrid.sectorCount(), sectorGrid.pooledCount(),
+                sectorGrid.slotsInUse(), FlatcollisionConfig.particleSlotBudget,
+                sectorGrid.memoryBytes() / (1024.0 * 1024.0)));
+        out.add(String.format(Locale.ROOT, "Overwrites: %d/t (%d total), evictions: %d/t (%d total), dropped: %d",
+                overwritesLastTick, sectorGrid.overwrittenCount(),
+                evictionsLastTick, sectorGrid.evictedCount(), sectorGrid.droppedEmits()));
+        out.add(String.format(Locale.ROOT, "Tick %.3f ms, collide %.3f ms, %s kernel%s, %d cached sections",
+                lastTickNanos / 1_000_000.0, lastCollideNanos / 1_000_000.0,
+                ParticleKernels.active().name(), lastParallel ? ", parallel" : "",
+                solidity.cachedSectionCount()));
+    }
+
+    @Nullable
+    private static Entity getCameraEntity() {
+        MinecraftClient client = MinecraftClient.getInstance();
+        return client != null ? client.getCameraEntity() : null;
+    }
+
     @Nullable
     private static ClientWorld getClientWorld() {
         MinecraftClient client = MinecraftClient.getInstance();
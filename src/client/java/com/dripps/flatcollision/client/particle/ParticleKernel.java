@@ -0,0 +1,27 @@
+package com.dripps.flatcollision.client.particle;
+
+/**
+ * integration step for one ring buffer. adds per slot gravity to vertical
+ * velocity, moves positions by velocity, scales velocity by per slot drag
+ * (vanilla particle order) and bumps age. expiry is handled by the caller.
+ */
+public interface ParticleKernel {
+
+    /** integrates the slots listed in slots[0, count), for sparse rings */
+    void integrate(float[] posX, float[] posY, float[] posZ,
+                   float[] velX, float[] velY, float[] velZ,
+                   float[] gravity, float[] drag,
+                   int[] age, int[] slots, int count);
+
+    /**
+     * integrates every slot in [0, count), for dense rings. dead slots get
+     * updated too, harmless since emit rewrites a slot before it is read.
+     */
+    void integrateRange(float[] posX, float[] posY, float[] posZ,
+                        float[] velX, float[] velY, float[] velZ,
+                        float[] gravity, float[] drag,
+                        int[] age, int count);
+
+    /** short name for logs and benchmarks */
+    String name();
+}
@@ -0,0 +1,46 @@
+package com.dripps.flatcollision.client.particle;
+
+import com.dripps.flatcollision.FlatcollisionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * picks the particle integration kernel once. the vector kernel needs the
+ * jdk.incubator.vector module (--add-modules jdk.incubator.vector) and the
+ * particles.simd option, everything else falls back to scalar.
+ */
+public final class ParticleKernels {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("FlatCollision/Particles");
+
+    private static ParticleKernel active;
+
+    private ParticleKernels() {}
+
+    public static ParticleKernel active() {
+        ParticleKernel kernel = active;
+        if (kernel == null) {
+            kernel = select(FlatcollisionConfig.particleSimd);
+            active = kernel;
+            LOGGER.info("[FlatCollision] particle kernel: {}", kernel.name());
+        }
+        return kernel;
+    }
+
+    /** true when the incubator vector module is resolved in the boot layer */
+    public static boolean vectorAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /** vector kernel when wanted and available, scalar otherwise */
+    public static ParticleKernel select(boolean simd) {
+        if (simd && vectorAvailable()) {
+            try {
+                return new VectorParticleKernel();
+            } catch (LinkageError e) {
+                LOGGER.warn("[FlatCollision] vector kernel unavailable, using scalar", e);
+            }
+        }
+        return ScalarParticleKernel.INSTANCE;
+    }
+}
@@ -1,27 +1,43 @@
 package com.dripps.flatcollision.client.particle;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.Arrays;
 
 /**
- * fixed size circular buffer for particle data. stores particle state in
- * contiguous off heap memory using structure of arrays layout. when full,
- * new particles overwrite oldest entry with zero gc pressure.
+ * circular buffer for particle data. stores particle state in preallocated
+ * primitive heap arrays using structure of arrays layout, so vector kernels can
+ * load lanes straight from the columns. when full, new particles overwrite
+ * oldest entry with zero gc pressure. alive slots are also kept in a dense
+ * index list so per tick work scales with live particles, not capacity.
+ * the owning grid may resize the ring between ticks, which keeps particles in
+ * age order. its heap footprint is capacity times the bytes of one slot
+ * across all columns.
  */
 public final class RingBuffer {
 
-    private static final int FLOAT_BYTES = Float.BYTES;
-    private static final int INT_BYTES   = Integer.BYTES;
+    /** gravity of mirrored particles in blocks per tick squared */
+    public static final float DEFAULT_GRAVITY = -0.04f;
 
-    private final int capacity;
+    /** rings at least 1/DENSE_FRACTION alive integrate the whole range */
+    private static final int DENSE_FRACTION = 4;
 
-    private final ByteBuffer posX, posY, posZ;
-    private final ByteBuffer velX, velY, velZ;
+    private int capacity;
 
-    private final ByteBuffer age;
-    private final ByteBuffer maxAge;
+    private float[] posX, posY, posZ;
+    private float[] velX, velY, velZ;
 
-    private final ByteBuffer alive;
+    /** per slot motion, emitters may give particles their own gravity and drag */
+    private float[] gravity, drag;
+
+    private int[] age;
+    private int[] maxAge;
+
+    private byte[] alive;
+
+    /** dense list of alive slots, order is arbitrary (swap removal) */
+    private int[] aliveSlots;
+
+    /** position of each slot in aliveSlots, -1 while dead */
+    private int[] aliveIndex;
 
     /** write head, wraps at capacity */
     private int head;
@@ -29,121 +45,309 @@ public final class RingBuffer {
     /** currently alive particle count */
     private int aliveCount;
 
+    /** ticks since last emit or live tick, used for sector eviction */
+    private int idleTicks;
+
+    /** level of detail tier of the owning sector, see SectorGrid */
+    private int lodTier;
+
+    /** live particles overwritten by emits since last drain */
+    private int overwrites;
+
+    /** emission pressure since the grid last sized this ring */
+    private int pressure;
+    private int peakAlive;
+
+    /** heap bytes per slot across all columns */
+    private static final int BYTES_PER_SLOT = 8 * Float.BYTES + 4 * Integer.BYTES + 1;
+
     public RingBuffer(int capacity) {
-        this.capacity = capacity;
         this.head = 0;
         this.aliveCount = 0;
+        allocate(capacity);
+    }
 
-        posX = allocFloat(capacity);
-        posY = allocFloat(capacity);
-        posZ = allocFloat(capacity);
-        velX = allocFloat(capacity);
-        velY = allocFloat(capacity);
-        velZ = allocFloat(capacity);
-        age    = allocInt(capacity);
-        maxAge = allocInt(capacity);
-        alive  = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        posX = new float[capacity];
+        posY = new float[capacity];
+        posZ = new float[capacity];
+        velX = new float[capacity];
+        velY = new float[capacity];
+        velZ = new float[capacity];
+        gravity = new float[capacity];
+        drag    = new float[capacity];
+        age    = new int[capacity];
+        maxAge = new int[capacity];
+        alive  = new byte[capacity];
+
+        aliveSlots = new int[capacity];
+        aliveIndex = new int[capacity];
+        Arrays.fill(aliveIndex, -1);
     }
 
     public int capacity()   { return capacity; }
     public int aliveCount() { return aliveCount; }
 
+    /** resets idle counter, called when sector is used */
+    void markActive() { idleTicks = 0; }
+
+    /** bumps idle counter and returns new value */
+    int incrementIdle() { return ++idleTicks; }
+
+    int lodTier() { return lodTier; }
+    void setLodTier(int tier) { lodTier = tier; }
+
+    /** returns and resets the overwrite counter */
+    int drainOverwrites() {
+        int n = overwrites;
+        overwrites = 0;
+        return n;
+    }
+
+    /** returns overwrites since last call and resets, demand signal for sizing */
+    int takePressure() {
+        int n = pressure;
+        pressure = 0;
+        return n;
+    }
+
+    /** returns peak alive count since last call and resets it */
+    int takePeakAlive() {
+        int n = peakAlive;
+        peakAlive = aliveCount;
+        return n;
+    }
+
     /**
-     * writes new particle at ring head. if full, overwrites oldest.
+     * reallocates columns at newCapacity, copying alive particles oldest first
+     * so the write head keeps overwriting the oldest. when shrinking below the
+     * alive count the oldest are dropped.
      */
+    void resize(int newCapacity) {
+        if (newCapacity == capacity) return;
+
+        float[] oPosX = posX, oPosY = posY, oPosZ = posZ;
+        float[] oVelX = velX, oVelY = velY, oVelZ = velZ;
+        float[] oGravity = gravity, oDrag = drag;
+        int[] oAge = age, oMaxAge = maxAge;
+        byte[] oAlive = alive;
+        int oCapacity = capacity, oHead = head;
+
+        int skip = Math.max(0, aliveCount - newCapacity);
+        allocate(newCapacity);
+
+        int n = 0;
+        for (int k = 0; k < oCapacity; k++) {
+            int i = oHead + k;
+            if (i >= oCapacity) i -= oCapacity;
+            if (oAlive[i] == 0) continue;
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+
+            posX[n] = oPosX[i];
+            posY[n] = oPosY[i];
+            posZ[n] = oPosZ[i];
+            velX[n] = oVelX[i];
+            velY[n] = oVelY[i];
+            velZ[n] = oVelZ[i];
+            gravity[n] = oGravity[i];
+            drag[n] = oDrag[i];
+            age[n] = oAge[i];
+            maxAge[n] = oMaxAge[i];
+            alive[n] = 1;
+            aliveSlots[n] = n;
+            aliveIndex[n] = n;
+            n++;
+        }
+
+        aliveCount = n;
+        head = n == capacity ? 0 : n;
+        peakAlive = Math.min(peakAlive, n);
+    }
+
+    /** heap bytes held by the columns */
+    public long memoryBytes() {
+        return (long) capacity * BYTES_PER_SLOT;
+    }
+
+    /** writes new particle with default gravity and no drag */
     public int emit(float px, float py, float pz,
                     float vx, float vy, float vz,
                     int lifetime) {
+        return emit(px, py, pz, vx, vy, vz, lifetime, DEFAULT_GRAVITY, 1.0f);
+    }
+
+    /**
+     * writes new particle at ring head. if full, overwrites oldest, which keeps
+     * its place in the alive list.
+     */
+    public int emit(float px, float py, float pz,
+                    float vx, float vy, float vz,
+                    int lifetime, float gravityPerTick, float dragPerTick) {
         int slot = head;
 
-        if (alive.get(slot) == 1) {
-            aliveCount--;
+        if (alive[slot] == 0) {
+            aliveIndex[slot] = aliveCount;
+            aliveSlots[aliveCount++] = slot;
+        } else {
+            overwrites++;
+            pressure++;
         }
 
-        int fo = slot * FLOAT_BYTES;
-        posX.putFloat(fo, px);
-        posY.putFloat(fo, py);
-        posZ.putFloat(fo, pz);
-        velX.putFloat(fo, vx);
-        velY.putFloat(fo, vy);
-        velZ.putFloat(fo, vz);
+        posX[slot] = px;
+        posY[slot] = py;
+        posZ[slot] = pz;
+        velX[slot] = vx;
+        velY[slot] = vy;
+        velZ[slot] = vz;
+        gravity[slot] = gravityPerTick;
+        drag[slot] = dragPerTick;
 
-        int io = slot * INT_BYTES;
-        age.putInt(io, 0);
-        maxAge.putInt(io, lifetime);
-        alive.put(slot, (byte) 1);
+        age[slot] = 0;
+        maxAge[slot] = lifetime;
+        alive[slot] = 1;
 
-        aliveCount++;
         head = (head + 1) % capacity;
         return slot;
     }
 
     /**
-     * advances all alive particles by one tick. integrates velocity, applies
-     * gravity, increments age, and kills expired particles. tight linear scan.
+     * writes count particles from packed xyz arrays in one contiguous pass,
+     * taking every step-th entry starting at from. default gravity, no drag.
      */
-    public void tick(float gravity) {
-        for (int i = 0; i < capacity; i++) {
-            if (alive.get(i) == 0) continue;
+    public void emitRun(float[] pos, float[] vel, int from, int count, int step, int lifetime) {
+        int slot = head;
+        for (int k = 0, src = from * 3; k < count; k++, src += step * 3) {
+            if (alive[slot] == 0) {
+                aliveIndex[slot] = aliveCount;
+                aliveSlots[aliveCount++] = slot;
+            } else {
+                overwrites++;
+                pressure++;
+            }
+
+            posX[slot] = pos[src];
+            posY[slot] = pos[src + 1];
+            posZ[slot] = pos[src + 2];
+            velX[slot] = vel[src];
+            velY[slot] = vel[src + 1];
+            velZ[slot] = vel[src + 2];
+            gravity[slot] = DEFAULT_GRAVITY;
+            drag[slot] = 1.0f;
 
-            int fo = i * FLOAT_BYTES;
-            int io = i * INT_BYTES;
+            age[slot] = 0;
+            maxAge[slot] = lifetime;
+            alive[slot] = 1;
+
+            if (++slot == capacity) slot = 0;
+        }
+        head = slot;
+    }
 
-            float vy = velY.getFloat(fo) + gravity;
-            velY.putFloat(fo, vy);
+    /**
+     * advances all alive particles by one tick with the active kernel, see
+     * {@link ParticleKernels}.
+     */
+    public void tick() {
+        tick(ParticleKernels.active());
+    }
 
-            posX.putFloat(fo, posX.getFloat(fo) + velX.getFloat(fo));
-            posY.putFloat(fo, posY.getFloat(fo) + vy);
-            posZ.putFloat(fo, posZ.getFloat(fo) + velZ.getFloat(fo));
+    /**
+     * advances all alive particles by one tick. kernel integrates velocity,
+     * applies gravity and drag and increments age, streaming the whole ring when it is
+     * dense and walking the alive list when sparse. expired particles are
+     * then swept out back to front so swapped in slots are already checked.
+     */
+    public void tick(ParticleKernel kernel) {
+        tick(kernel, 1);
+    }
 
-            int currentAge = age.getInt(io) + 1;
-            age.putInt(io, currentAge);
+    /**
+     * advances all alive particles by steps ticks at once, for rings that
+     * skip ticks. every step integrates and ages, expiry is swept once after
+     * the last, so a particle may move one step past its max age before it
+     * is removed.
+     */
+    public void tick(ParticleKernel kernel, int steps) {
+        if (aliveCount == 0) return;
+        if (aliveCount > peakAlive) peakAlive = aliveCount;
+
+        boolean dense = aliveCount * DENSE_FRACTION >= capacity;
+        for (int s = 0; s < steps; s++) {
+            if (dense) {
+                kernel.integrateRange(posX, posY, posZ, velX, velY, velZ, gravity, drag, age, capacity);
+            } else {
+                kernel.integrate(posX, posY, posZ, velX, velY, velZ, gravity, drag, age, aliveSlots, aliveCount);
+            }
+        }
 
-            if (currentAge >= maxAge.getInt(io)) {
-                alive.put(i, (byte) 0);
-                aliveCount--;
+        for (int n = aliveCount - 1; n >= 0; n--) {
+            int i = aliveSlots[n];
+            if (age[i] >= maxAge[i]) {
+                kill(i);
             }
         }
     }
 
-    public boolean isAlive(int slot) { return alive.get(slot) == 1; }
+    /** marks slot dead and swap removes it from the alive list */
+    private void kill(int slot) {
+        alive[slot] = 0;
+        int idx = aliveIndex[slot];
+        int last = aliveSlots[--aliveCount];
+        aliveSlots[idx] = last;
+        aliveIndex[last] = idx;
+        aliveIndex[slot] = -1;
+    }
+
+    public boolean isAlive(int slot) { return alive[slot] == 1; }
 
-    public float getPosX(int slot) { return posX.getFloat(slot * FLOAT_BYTES); }
-    public float getPosY(int slot) { return posY.getFloat(slot * FLOAT_BYTES); }
-    public float getPosZ(int slot) { return posZ.getFloat(slot * FLOAT_BYTES); }
+    public float getPosX(int slot) { return posX[slot]; }
+    public float getPosY(int slot) { return posY[slot]; }
+    public float getPosZ(int slot) { return posZ[slot]; }
 
-    public float getVelX(int slot) { return velX.getFloat(slot * FLOAT_BYTES); }
-    public float getVelY(int slot) { return velY.getFloat(slot * FLOAT_BYTES); }
-    public float getVelZ(int slot) { return velZ.getFloat(slot * FLOAT_BYTES); }
+    public float getVelX(int slot) { return velX[slot]; }
+    public float getVelY(int slot) { return velY[slot]; }
+    public float getVelZ(int slot) { return velZ[slot]; }
 
-    public int getAge(int slot)    { return age.getInt(slot * INT_BYTES); }
-    public int getMaxAge(int slot) { return maxAge.getInt(slot * INT_BYTES); }
+    public int getAge(int slot)    { return age[slot]; }
+    public int getMaxAge(int slot) { return maxAge[slot]; }
 
     /**
      * performs batch block collision for all alive particles. checks predicted
      * next position against block grid and zeros velocity on collision.
      */
     public void batchCollideBlocks(BlockCollisionTest test) {
-        for (int i = 0; i < capacity; i++) {
-            if (alive.get(i) == 0) continue;
-
-            int fo = i * FLOAT_BYTES;
-            float px = posX.getFloat(fo);
-            float py = posY.getFloat(fo);
-            float pz = posZ.getFloat(fo);
+        for (int n = 0; n < aliveCount; n++) {
+            int i = aliveSlots[n];
 
-            float nx = px + velX.getFloat(fo);
-            float ny = py + velY.getFloat(fo);
-            float nz = pz + velZ.getFloat(fo);
+            float nx = posX[i] + velX[i];
+            float ny = posY[i] + velY[i];
+            float nz = posZ[i] + velZ[i];
 
             if (test.isSolid(nx, ny, nz)) {
-                velX.putFloat(fo, 0f);
-                velY.putFloat(fo, 0f);
-                velZ.putFloat(fo, 0f);
+                velX[i] = 0f;
+                velY[i] = 0f;
+                velZ[i] = 0f;
             }
         }
     }
 
+    /** passes predicted next position of every alive particle to visitor, read only */
+    public void forEachPredicted(PositionVisitor visitor) {
+        for (int n = 0; n < aliveCount; n++) {
+            int i = aliveSlots[n];
+            visitor.accept(posX[i] + velX[i], posY[i] + velY[i], posZ[i] + velZ[i]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PositionVisitor {
+        void accept(float x, float y, float z);
+    }
+
     /** functional interface for block solidity tests */
     @FunctionalInterface
     public interface BlockCollisionTest {
@@ -152,18 +356,17 @@ public final class RingBuffer {
 
     /** kills all particles without releasing buffers */
     public void clear() {
-        for (int i = 0; i < capacity; i++) {
-            alive.put(i, (byte) 0);
+        for (int n = 0; n < aliveCount; n++) {
+            int slot = aliveSlots[n];
+            alive[slot] = 0;
+            aliveIndex[slot] = -1;
         }
         aliveCount = 0;
         head = 0;
-    }
-
-    private static ByteBuffer allocFloat(int slots) {
-        return ByteBuffer.allocateDirect(slots * FLOAT_BYTES).order(ByteOrder.nativeOrder());
-    }
-
-    private static ByteBuffer allocInt(int slots) {
-        return ByteBuffer.allocateDirect(slots * INT_BYTES).order(ByteOrder.nativeOrder());
+        idleTicks = 0;
+        lodTier = 0;
+        overwrites = 0;
+        pressure = 0;
+        peakAlive = 0;
     }
 }
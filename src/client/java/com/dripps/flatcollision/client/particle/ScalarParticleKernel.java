@@ -0,0 +1,56 @@
+package com.dripps.flatcollision.client.particle;
+
+/** one slot at a time, always available */
+public final class ScalarParticleKernel implements ParticleKernel {
+
+    public static final ScalarParticleKernel INSTANCE = new ScalarParticleKernel();
+
+    private ScalarParticleKernel() {}
+
+    @Override
+    public void integrate(float[] posX, float[] posY, float[] posZ,
+                          float[] velX, float[] velY, float[] velZ,
+                          float[] gravity, float[] drag,
+                          int[] age, int[] slots, int count) {
+        for (int n = 0; n < count; n++) {
+            int i = slots[n];
+
+            float vy = velY[i] + gravity[i];
+            posX[i] += velX[i];
+            posY[i] += vy;
+            posZ[i] += velZ[i];
+
+            float d = drag[i];
+            velX[i] *= d;
+            velY[i] = vy * d;
+            velZ[i] *= d;
+
+            age[i]++;
+        }
+    }
+
+    @Override
+    public void integrateRange(float[] posX, float[] posY, float[] posZ,
+                               float[] velX, float[] velY, float[] velZ,
+                               float[] gravity, float[] drag,
+                               int[] age, int count) {
+        for (int i = 0; i < count; i++) {
+            float vy = velY[i] + gravity[i];
+            posX[i] += velX[i];
+            posY[i] += vy;
+            posZ[i] += velZ[i];
+
+            float d = drag[i];
+            velX[i] *= d;
+            velY[i] = vy * d;
+            velZ[i] *= d;
+
+            age[i]++;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -1,62 +1,391 @@
 package com.dripps.flatcollision.client.particle;
 
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import com.dripps.flatcollision.FlatcollisionConfig;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 /**
- * divides world into large sectors (64 blocks) with one ring buffer each.
- * sectors created lazily and never freed, just overwrite stale data.
+ * divides world into large cubic sectors (64 blocks) with one ring buffer
+ * each. sectors are created lazily and kept in LRU order. rings start small
+ * and are resized every few ticks by emission pressure: rings that overwrite
+ * live particles double, mostly empty rings halve, all within a global slot
+ * budget. sectors idle for too long or beyond the sector or slot budget are
+ * evicted and their buffers recycled through a small pool. rings are plain
+ * heap arrays, so the slot budget bounds the heap bytes held by ring columns
+ * (see {@link #memoryBytes}) on long sessions, there is no direct memory.
+ * sectors share no state, so with a fork join pool they tick and collide in
+ * parallel.
+ * sectors far from the camera get a lower level of detail: fewer but longer
+ * ticks, less collision and thinned emission, and a per tick emission
+ * budget favours near sectors.
  */
 public final class SectorGrid {
 
     /** sector size in blocks */
     public static final int SECTOR_SIZE = 64;
 
-    /** max particles per sector ring buffer */
-    private static final int RING_CAPACITY = 2048;
+    /** ring capacity of a new sector, and the bounds resizing stays within */
+    public static final int INITIAL_RING_CAPACITY = 1024;
+    private static final int MIN_RING_CAPACITY = 256;
+    private static final int MAX_RING_CAPACITY = 16384;
+
+    /** ticks between ring sizing passes */
+    private static final int RESIZE_INTERVAL = 20;
+
+    /** evicted buffers kept for reuse, anything beyond is dropped */
+    private static final int POOL_CAPACITY = 8;
+
+    /** map from packed sector key to ring buffer, least recently emitted first */
+    private final Long2ObjectLinkedOpenHashMap<RingBuffer> sectors = new Long2ObjectLinkedOpenHashMap<>();
+
+    /** cleared buffers ready for a new sector */
+    private final ArrayDeque<RingBuffer> pool = new ArrayDeque<>(POOL_CAPACITY);
+
+    private long evictedCount;
+    private long overwrittenCount;
+
+    /** summed capacity of all sector rings, kept under particles.slotBudget */
+    private int slotsInUse;
 
-    /** map from packed sector key to ring buffer */
-    private final Long2ObjectOpenHashMap<RingBuffer> sectors = new Long2ObjectOpenHashMap<>();
+    /** level of detail tiers by sector distance from the camera */
+    static final int LOD_NEAR = 0;
+    static final int LOD_MID  = 1;
+    static final int LOD_FAR  = 2;
+
+    /** share of the emission budget each tier may use, near gets all of it */
+    private static final float[] BUDGET_SHARE = {1.0f, 0.5f, 0.25f};
+
+    private int cameraSectorX, cameraSectorY, cameraSectorZ;
+    private boolean hasCamera;
+
+    private int tickCounter;
+    private int emittedThisTick;
+    private int farEmitCounter;
+    private long droppedEmits;
+
+    /** sectors with live particles this tick, parallel work list */
+    private RingBuffer[] live = new RingBuffer[16];
+    private int liveCount;
+
+    /** per live sector section keys and their union, for the collision prepass */
+    private LongOpenHashSet[] sectionSets = new LongOpenHashSet[0];
+    private final LongOpenHashSet sectionUnion = new LongOpenHashSet();
 
     /** converts world coordinate to sector coordinate */
     public static int toSectorCoord(double worldCoord) {
         return Math.floorDiv((int) Math.floor(worldCoord), SECTOR_SIZE);
     }
 
-    /** packs two sector coordinates into long key */
-    public static long packKey(int sectorX, int sectorZ) {
-        return ((long) sectorX << 32) | (sectorZ & 0xFFFFFFFFL);
+    /** packs sector coordinates into long key, 24 bits x and z, 16 bits y */
+    public static long packKey(int sectorX, int sectorY, int sectorZ) {
+        return ((long) sectorX << 40) | ((sectorY & 0xFFFFL) << 24) | (sectorZ & 0xFFFFFFL);
+    }
+
+    static int unpackX(long key) { return (int) (key >> 40); }
+    static int unpackY(long key) { return (int) (key << 24 >> 48); }
+    static int unpackZ(long key) { return (int) (key << 40 >> 40); }
+
+    private static long keyOf(double worldX, double worldY, double worldZ) {
+        return packKey(toSectorCoord(worldX), toSectorCoord(worldY), toSectorCoord(worldZ));
     }
 
     /**
-     * emits particle into sector at world position. creates sector lazily if needed.
+     * emits particle into sector at world position. creates sector lazily if
+     * needed, evicting the least recently used one when over budget.
      */
     public int emit(double worldX, double worldY, double worldZ,
                     float vx, float vy, float vz, int lifetime) {
-        long key = packKey(toSectorCoord(worldX), toSectorCoord(worldZ));
-        RingBuffer ring = sectors.computeIfAbsent(key, k -> new RingBuffer(RING_CAPACITY));
+        RingBuffer ring = sectorAt(keyOf(worldX, worldY, worldZ));
         return ring.emit((float) worldX, (float) worldY, (float) worldZ, vx, vy, vz, lifetime);
     }
 
     /**
-     * ticks all sectors with alive particles.
+     * emits count particles from packed xyz position and velocity arrays. runs
+     * of consecutive particles in the same sector resolve their ring once and
+     * are written contiguously; LOD thinning and the emission budget are
+     * applied per run. returns number of particles stored.
      */
-    public void tick(float gravity) {
-        for (RingBuffer ring : sectors.values()) {
+    public int emitBulk(float[] pos, float[] vel, int count, int lifetime) {
+        int stored = 0;
+        int i = 0;
+        while (i < count) {
+            long key = keyOf(pos[i * 3], pos[i * 3 + 1], pos[i * 3 + 2]);
+            int end = i + 1;
+            while (end < count && keyOf(pos[end * 3], pos[end * 3 + 1], pos[end * 3 + 2]) == key) {
+                end++;
+            }
+
+            int run = end - i;
+            int tier = lodTier(key);
+            int first = 0, step = 1, keep = run;
+
+            if (tier == LOD_FAR) {
+                int thinning = FlatcollisionConfig.particleFarThinning;
+                if (thinning > 1) {
+                    // same picks as admit() would make one by one
+                    first = (thinning - farEmitCounter % thinning) % thinning;
+                    keep = first < run ? (run - first - 1) / thinning + 1 : 0;
+                    step = thinning;
+                    farEmitCounter += run;
+                }
+            }
+
+            keep = Math.min(keep, budgetLeft(tier));
+            droppedEmits += run - keep;
+            if (keep > 0) {
+                emittedThisTick += keep;
+                sectorAt(key).emitRun(pos, vel, i + first, keep, step, lifetime);
+                stored += keep;
+            }
+            i = end;
+        }
+        return stored;
+    }
+
+    /** sets camera position used for level of detail, called once per tick */
+    public void setCamera(double worldX, double worldY, double worldZ) {
+        cameraSectorX = toSectorCoord(worldX);
+        cameraSectorY = toSectorCoord(worldY);
+        cameraSectorZ = toSectorCoord(worldZ);
+        hasCamera = true;
+    }
+
+    public void clearCamera() {
+        hasCamera = false;
+    }
+
+    /** LOD tier of a sector, near when LOD is off or there is no camera */
+    int lodTier(long key) {
+        if (!hasCamera || !FlatcollisionConfig.particleLod) return LOD_NEAR;
+        int dist = Math.max(Math.abs(unpackX(key) - cameraSectorX),
+                Math.max(Math.abs(unpackY(key) - cameraSectorY), Math.abs(unpackZ(key) - cameraSectorZ)));
+        if (dist <= FlatcollisionConfig.particleLodNearSectors) return LOD_NEAR;
+        if (dist <= FlatcollisionConfig.particleLodFarSectors) return LOD_MID;
+        return LOD_FAR;
+    }
+
+    /**
+     * decides whether a new particle at position is stored. far sectors keep
+     * only 1 in particles.farThinning, and each tier may fill only its share
+     * of the per tick budget so near emission is never starved by far bursts.
+     */
+    public boolean admit(double worldX, double worldY, double worldZ) {
+        int tier = lodTier(keyOf(worldX, worldY, worldZ));
+
+        if (tier == LOD_FAR) {
+            int thinning = FlatcollisionConfig.particleFarThinning;
+            if (thinning > 1 && farEmitCounter++ % thinning != 0) {
+                droppedEmits++;
+                return false;
+            }
+        }
+
+        if (budgetLeft(tier) == 0) {
+            droppedEmits++;
+            return false;
+        }
+        emittedThisTick++;
+        return true;
+    }
+
+    /** particles a tier may still store this tick */
+    private int budgetLeft(int tier) {
+        int budget = FlatcollisionConfig.particleEmitBudget;
+        if (budget <= 0) return Integer.MAX_VALUE;
+        return Math.max(0, (int) Math.ceil(budget * BUDGET_SHARE[tier]) - emittedThisTick);
+    }
+
+    /** returns ring of the sector key, marking it most recently used */
+    private RingBuffer sectorAt(long key) {
+        RingBuffer ring = sectors.getAndMoveToLast(key);
+        if (ring == null) {
+            ring = acquire();
+            sectors.putAndMoveToLast(key, ring);
+            slotsInUse += ring.capacity();
+            int budget = Math.max(1, FlatcollisionConfig.particleSectorBudget);
+            while (sectors.size() > 1
+                    && (sectors.size() > budget || slotsInUse > FlatcollisionConfig.particleSlotBudget)) {
+                recycle(sectors.removeFirst());
+            }
+        }
+        ring.markActive();
+        return ring;
+    }
+
+    /**
+     * ticks all sectors with alive particles. sectors without particles age
+     * and are evicted once idle for the configured number of ticks.
+     */
+    public void tick() {
+        tick(null);
+    }
+
+    /**
+     * ticks all sectors with alive particles, spread over pool when given.
+     * eviction and the live list are built serially first.
+     */
+    public void tick(@Nullable ForkJoinPool pool) {
+        tickCounter++;
+        emittedThisTick = 0;
+        boolean evenTick = (tickCounter & 1) == 0;
+        boolean resizeTick = tickCounter % RESIZE_INTERVAL == 0;
+
+        int idleLimit = FlatcollisionConfig.particleSectorIdleTicks;
+        liveCount = 0;
+        ObjectIterator<Long2ObjectMap.Entry<RingBuffer>> it = sectors.long2ObjectEntrySet().fastIterator();
+        while (it.hasNext()) {
+            Long2ObjectMap.Entry<RingBuffer> entry = it.next();
+            RingBuffer ring = entry.getValue();
+            overwrittenCount += ring.drainOverwrites();
+            if (resizeTick) resizeByPressure(ring);
             if (ring.aliveCount() > 0) {
-                ring.tick(gravity);
+                int tier = lodTier(entry.getLongKey());
+                ring.setLodTier(tier);
+                ring.markActive();
+                // far sectors advance two ticks every other tick
+                if (tier != LOD_FAR || evenTick) addLive(ring);
+            } else if (ring.incrementIdle() > idleLimit) {
+                it.remove();
+                recycle(ring);
             }
         }
+
+        ParticleKernel kernel = ParticleKernels.active();
+        RingBuffer[] rings = live;
+        forEachLive(pool, i -> rings[i].tick(kernel, rings[i].lodTier() == LOD_FAR ? 2 : 1));
+    }
+
+    /**
+     * grows a ring that overwrote live particles since the last pass by
+     * doubling until it would have held them, as far as the slot budget
+     * allows. halves one whose peak stayed under a quarter.
+     */
+    private void resizeByPressure(RingBuffer ring) {
+        int pressure = ring.takePressure();
+        int peak = ring.takePeakAlive();
+        int capacity = ring.capacity();
+
+        if (pressure > 0) {
+            int demand = capacity + pressure;
+            int grown = capacity;
+            while (grown < demand && grown < MAX_RING_CAPACITY
+                    && slotsInUse + grown * 2 - capacity <= FlatcollisionConfig.particleSlotBudget) {
+                grown *= 2;
+            }
+            if (grown != capacity) {
+                ring.resize(grown);
+                slotsInUse += grown - capacity;
+            }
+        } else if (capacity > MIN_RING_CAPACITY && peak * 4 < capacity) {
+            ring.resize(capacity / 2);
+            slotsInUse -= capacity / 2;
+        }
+    }
+
+    /** near sectors collide every tick, mid sectors every other tick, far never */
+    private boolean collidesThisTick(RingBuffer ring) {
+        if (ring.aliveCount() == 0) return false;
+        return switch (ring.lodTier()) {
+            case LOD_NEAR -> true;
+            case LOD_MID -> (tickCounter & 1) == 0;
+            default -> false;
+        };
     }
 
     /** performs batch block collision for all sectors with alive particles */
     public void batchCollideBlocks(RingBuffer.BlockCollisionTest test) {
         for (RingBuffer ring : sectors.values()) {
-            if (ring.aliveCount() > 0) {
+            if (collidesThisTick(ring)) {
                 ring.batchCollideBlocks(test);
             }
         }
     }
 
+    /**
+     * batch block collision against the solidity cache. without a pool this is
+     * the serial path. with one, workers first collect the sections their
+     * particles move into, the client thread builds the missing ones, then
+     * workers collide against a read only view of the cache.
+     */
+    public void batchCollideBlocks(BlockSolidityCache cache, @Nullable ForkJoinPool pool) {
+        if (pool == null) {
+            batchCollideBlocks(cache);
+            return;
+        }
+
+        liveCount = 0;
+        for (RingBuffer ring : sectors.values()) {
+            if (collidesThisTick(ring)) addLive(ring);
+        }
+        if (liveCount == 0) return;
+
+        if (sectionSets.length < liveCount) {
+            int old = sectionSets.length;
+            sectionSets = Arrays.copyOf(sectionSets, live.length);
+            for (int i = old; i < sectionSets.length; i++) sectionSets[i] = new LongOpenHashSet();
+        }
+
+        RingBuffer[] rings = live;
+        LongOpenHashSet[] sets = sectionSets;
+        forEachLive(pool, i -> {
+            LongOpenHashSet set = sets[i];
+            set.clear();
+            rings[i].forEachPredicted((x, y, z) -> set.add(BlockSolidityCache.sectionKey(x, y, z)));
+        });
+
+        sectionUnion.clear();
+        for (int i = 0; i < liveCount; i++) sectionUnion.addAll(sets[i]);
+        cache.prepare(sectionUnion);
+
+        forEachLive(pool, i -> rings[i].batchCollideBlocks(cache.snapshotView()));
+    }
+
+    private void addLive(RingBuffer ring) {
+        if (liveCount == live.length) live = Arrays.copyOf(live, liveCount * 2);
+        live[liveCount++] = ring;
+    }
+
+    /** runs op for every live index, on pool when there is more than one sector */
+    private void forEachLive(@Nullable ForkJoinPool pool, IntConsumer op) {
+        if (pool == null || liveCount < 2) {
+            for (int i = 0; i < liveCount; i++) op.accept(i);
+        } else {
+            pool.invoke(new LiveRangeTask(0, liveCount, op));
+        }
+    }
+
+    /** splits a live index range down to single sectors */
+    private static final class LiveRangeTask extends RecursiveAction {
+
+        private final int from, to;
+        private final IntConsumer op;
+
+        LiveRangeTask(int from, int to, IntConsumer op) {
+            this.from = from;
+            this.to = to;
+            this.op = op;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) op.accept(i);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new LiveRangeTask(from, mid, op), new LiveRangeTask(mid, to, op));
+        }
+    }
+
     /** returns total alive particles across all sectors */
     public int totalAlive() {
         int total = 0;
@@ -71,6 +400,39 @@ public final class SectorGrid {
         return sectors.size();
     }
 
+    /** returns summed ring capacity of all sectors */
+    public int slotsInUse() {
+        return slotsInUse;
+    }
+
+    /** returns number of pooled buffers waiting for reuse */
+    public int pooledCount() {
+        return pool.size();
+    }
+
+    /** returns number of particles rejected by LOD thinning or the emission budget */
+    public long droppedEmits() {
+        return droppedEmits;
+    }
+
+    /** returns number of live particles overwritten by full rings since start */
+    public long overwrittenCount() {
+        return overwrittenCount;
+    }
+
+    /** returns heap bytes held by sector and pooled ring buffers */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (RingBuffer ring : sectors.values()) bytes += ring.memoryBytes();
+        for (RingBuffer ring : pool) bytes += ring.memoryBytes();
+        return bytes;
+    }
+
+    /** returns number of sectors evicted since start */
+    public long evictedCount() {
+        return evictedCount;
+    }
+
     /** clears all particles but keeps sector buffers allocated */
     public void clearParticles() {
         for (RingBuffer ring : sectors.values()) {
@@ -78,8 +440,28 @@ public final class SectorGrid {
         }
     }
 
-    /** releases all sectors */
+    /** releases all sectors and pooled buffers */
     public void clearAll() {
         sectors.clear();
+        pool.clear();
+        slotsInUse = 0;
+        Arrays.fill(live, null);
+        liveCount = 0;
+    }
+
+    private RingBuffer acquire() {
+        RingBuffer ring = pool.poll();
+        return ring != null ? ring : new RingBuffer(INITIAL_RING_CAPACITY);
+    }
+
+    /** only rings at initial capacity are pooled, resized ones are dropped */
+    private void recycle(RingBuffer ring) {
+        evictedCount++;
+        overwrittenCount += ring.drainOverwrites();
+        slotsInUse -= ring.capacity();
+        if (pool.size() < POOL_CAPACITY && ring.capacity() == INITIAL_RING_CAPACITY) {
+            ring.clear();
+            pool.push(ring);
+        }
     }
 }
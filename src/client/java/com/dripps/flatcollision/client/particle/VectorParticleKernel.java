@@ -0,0 +1,74 @@
+package com.dripps.flatcollision.client.particle;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * vector API kernel for dense rings, streamed lane block by lane block with a
+ * scalar tail. only load this class after {@link ParticleKernels} confirmed the
+ * jdk.incubator.vector module is present.
+ */
+public final class VectorParticleKernel implements ParticleKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    /** same shape as the float species, so ages share the lane block */
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, FLOATS.vectorShape());
+
+    /** gather/scatter through the alive list measured slower than scalar, so sparse rings stay scalar */
+    @Override
+    public void integrate(float[] posX, float[] posY, float[] posZ,
+                          float[] velX, float[] velY, float[] velZ,
+                          float[] gravity, float[] drag,
+                          int[] age, int[] slots, int count) {
+        ScalarParticleKernel.INSTANCE.integrate(posX, posY, posZ, velX, velY, velZ, gravity, drag, age, slots, count);
+    }
+
+    @Override
+    public void integrateRange(float[] posX, float[] posY, float[] posZ,
+                               float[] velX, float[] velY, float[] velZ,
+                               float[] gravity, float[] drag,
+                               int[] age, int count) {
+        int lanes = FLOATS.length();
+        int bound = FLOATS.loopBound(count);
+
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            FloatVector d = FloatVector.fromArray(FLOATS, drag, i);
+            FloatVector vx = FloatVector.fromArray(FLOATS, velX, i);
+            FloatVector vy = FloatVector.fromArray(FLOATS, velY, i)
+                    .add(FloatVector.fromArray(FLOATS, gravity, i));
+            FloatVector vz = FloatVector.fromArray(FLOATS, velZ, i);
+
+            FloatVector.fromArray(FLOATS, posX, i).add(vx).intoArray(posX, i);
+            FloatVector.fromArray(FLOATS, posY, i).add(vy).intoArray(posY, i);
+            FloatVector.fromArray(FLOATS, posZ, i).add(vz).intoArray(posZ, i);
+
+            vx.mul(d).intoArray(velX, i);
+            vy.mul(d).intoArray(velY, i);
+            vz.mul(d).intoArray(velZ, i);
+
+            IntVector.fromArray(INTS, age, i).add(1).intoArray(age, i);
+        }
+
+        for (; i < count; i++) {
+            float vy = velY[i] + gravity[i];
+            posX[i] += velX[i];
+            posY[i] += vy;
+            posZ[i] += velZ[i];
+
+            float d = drag[i];
+            velX[i] *= d;
+            velY[i] = vy * d;
+            velZ[i] *= d;
+
+            age[i]++;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector/" + FLOATS.length() + "x32";
+    }
+}
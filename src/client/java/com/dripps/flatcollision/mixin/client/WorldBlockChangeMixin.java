@@ -0,0 +1,27 @@
+package com.dripps.flatcollision.mixin.client;
+
+import com.dripps.flatcollision.client.particle.FlatParticleEngine;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * invalidates particle solidity cache on client block changes. every client
+ * block change, from server packets or local prediction, ends up here.
+ */
+@Mixin(World.class)
+public abstract class WorldBlockChangeMixin {
+
+    @Inject(method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;II)Z",
+            at = @At("RETURN"))
+    private void flatcollision$onSetBlockState(BlockPos pos, BlockState state, int flags, int maxUpdateDepth,
+                                               CallbackInfoReturnable<Boolean> cir) {
+        if (cir.getReturnValueZ() && ((World) (Object) this).isClient()) {
+            FlatParticleEngine.INSTANCE.onBlockChanged(pos);
+        }
+    }
+}
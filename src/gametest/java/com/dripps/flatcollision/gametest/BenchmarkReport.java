@@ -0,0 +1,74 @@
+package com.dripps.flatcollision.gametest;
+
+import net.fabricmc.loader.api.FabricLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * csv report of benchmark phases. path comes from the
+ * flatcollision.benchmark.report system property, defaults to the game dir.
+ * the file is truncated on the first row of each run.
+ */
+final class BenchmarkReport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("FlatCollision/Benchmark");
+
+    private static final String HEADER =
+            "scenario,mode,entities,ticks,query_ms_per_tick,queries_per_tick,mspt_avg,mspt_p95";
+
+    private static boolean started;
+
+    private BenchmarkReport() {}
+
+    /** one measured phase of a scenario */
+    record Row(String scenario, String mode, int entities, int ticks,
+               double queryMsPerTick, double queriesPerTick,
+               double msptAvg, double msptP95) {
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,%s,%d,%d,%.4f,%.1f,%.3f,%.3f",
+                    scenario, mode, entities, ticks, queryMsPerTick, queriesPerTick, msptAvg, msptP95);
+        }
+    }
+
+    static Path path() {
+        String override = System.getProperty("flatcollision.benchmark.report");
+        if (override != null && !override.isBlank()) {
+            return Path.of(override);
+        }
+        return FabricLoader.getInstance().getGameDir().resolve("flatcollision-benchmark.csv");
+    }
+
+    static synchronized void append(Row row) {
+        LOGGER.info("[FlatCollision] benchmark {} {}: {} entities, query {} ms/tick, mspt avg {} p95 {}",
+                row.scenario(), row.mode(), row.entities(),
+                String.format(Locale.ROOT, "%.4f", row.queryMsPerTick()),
+                String.format(Locale.ROOT, "%.3f", row.msptAvg()),
+                String.format(Locale.ROOT, "%.3f", row.msptP95()));
+
+        Path path = path();
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+
+            if (!started) {
+                started = true;
+                Files.writeString(path, HEADER + System.lineSeparator());
+            }
+            try (Writer writer = Files.newBufferedWriter(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(row.toCsv());
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("[FlatCollision] could not write benchmark report {}", path, e);
+        }
+    }
+}
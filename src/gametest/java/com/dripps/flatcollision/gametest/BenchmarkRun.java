@@ -0,0 +1,185 @@
+package com.dripps.flatcollision.gametest;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.QueryTimer;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * drives one A/B scenario inside a single gametest. the scenario is built once,
+ * then measured with redirects off (vanilla) and on (flat). each phase warms up
+ * before query time and MSPT are sampled. engines keep tracking in both phases
+ * so their lifecycle cost lands on both sides.
+ */
+final class BenchmarkRun {
+
+    static final int SETUP_TICK = 1;
+    static final int WARMUP_TICKS = 100;
+    static final int MEASURE_TICKS = 200;
+    static final int PHASE_TICKS = WARMUP_TICKS + MEASURE_TICKS;
+
+    /** setup, two phases and slack for scheduling */
+    static final int MAX_TICKS = SETUP_TICK + 2 * PHASE_TICKS + 40;
+
+    private final TestContext context;
+    private final String scenario;
+    private final int size;
+
+    private final List<Entity> spawned = new ArrayList<>();
+    private final List<BlockPos> placed = new ArrayList<>();
+    private final List<ChunkPos> forced = new ArrayList<>();
+
+    private BenchmarkRun(TestContext context, String scenario, int size) {
+        this.context = context;
+        this.scenario = scenario;
+        this.size = size;
+    }
+
+    /**
+     * schedules a scenario over a size x size footprint. setup gets a run with
+     * a stone floor already laid and chunks force loaded.
+     */
+    static void start(TestContext context, String scenario, int size, Consumer<BenchmarkRun> setup) {
+        BenchmarkRun run = new BenchmarkRun(context, scenario, size);
+
+        context.runAtTick(SETUP_TICK, () -> {
+            run.forceLoad();
+            run.floor();
+            setup.accept(run);
+        });
+
+        int vanillaStart = SETUP_TICK + 1;
+        int flatStart = vanillaStart + PHASE_TICKS;
+        run.schedulePhase("vanilla", false, vanillaStart);
+        run.schedulePhase("flat", true, flatStart);
+
+        context.runAtTick(flatStart + PHASE_TICKS + 1, () -> {
+            run.cleanup();
+            context.complete();
+        });
+    }
+
+    private void schedulePhase(String mode, boolean redirects, int startTick) {
+        context.runAtTick(startTick, () -> PhysicsEngine.setRedirectsEnabled(redirects));
+
+        context.runAtTick(startTick + WARMUP_TICKS, () -> {
+            QueryTimer.reset();
+            QueryTimer.setEnabled(true);
+            TickRecorder.arm();
+        });
+
+        context.runAtTick(startTick + PHASE_TICKS, () -> {
+            QueryTimer.setEnabled(false);
+            long[] ticks = TickRecorder.disarm();
+            BenchmarkReport.append(toRow(mode, ticks));
+        });
+    }
+
+    private BenchmarkReport.Row toRow(String mode, long[] sortedTicks) {
+        int n = sortedTicks.length;
+        long sum = 0;
+        for (long t : sortedTicks) sum += t;
+
+        double msptAvg = n > 0 ? sum / (double) n / 1_000_000.0 : 0.0;
+        double msptP95 = n > 0 ? sortedTicks[Math.min(n - 1, (int) Math.ceil(n * 0.95) - 1)] / 1_000_000.0 : 0.0;
+        int ticks = Math.max(1, n);
+
+        int alive = 0;
+        for (Entity entity : spawned) {
+            if (entity.isAlive()) alive++;
+        }
+
+        return new BenchmarkReport.Row(scenario, mode, alive, n,
+                QueryTimer.totalNanos() / (double) ticks / 1_000_000.0,
+                QueryTimer.queryCount() / (double) ticks,
+                msptAvg, msptP95);
+    }
+
+    // ---- scenario building, all coordinates relative to the test origin ----
+
+    void spawn(EntityType<?> type, double x, double z) {
+        spawned.add(context.spawnEntity(type, (float) x, 1.0f, (float) z));
+    }
+
+    /** full stacks never merge, so every item entity stays in the world */
+    void spawnFullStack(double x, double z) {
+        ItemEntity item = context.spawnItem(Items.COBBLESTONE, (float) x, 1.0f, (float) z);
+        item.setStack(new ItemStack(Items.COBBLESTONE, 64));
+        spawned.add(item);
+    }
+
+    /** solid ring of the given height around [x0, x1] x [z0, z1] */
+    void walls(int x0, int z0, int x1, int z1, int height) {
+        for (int y = 1; y <= height; y++) {
+            for (int x = x0; x <= x1; x++) {
+                place(x, y, z0, Blocks.STONE);
+                place(x, y, z1, Blocks.STONE);
+            }
+            for (int z = z0 + 1; z < z1; z++) {
+                place(x0, y, z, Blocks.STONE);
+                place(x1, y, z, Blocks.STONE);
+            }
+        }
+    }
+
+    private void place(int x, int y, int z, Block block) {
+        context.setBlockState(x, y, z, block);
+        placed.add(new BlockPos(x, y, z));
+    }
+
+    private void floor() {
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                context.setBlockState(x, 0, z, Blocks.STONE);
+            }
+        }
+    }
+
+    /** footprint may leave the structure box, keep its chunks entity ticking */
+    private void forceLoad() {
+        ServerWorld world = context.getWorld();
+        ChunkPos min = new ChunkPos(context.getAbsolutePos(new BlockPos(0, 0, 0)));
+        ChunkPos max = new ChunkPos(context.getAbsolutePos(new BlockPos(size - 1, 0, size - 1)));
+        for (int cx = Math.min(min.x, max.x); cx <= Math.max(min.x, max.x); cx++) {
+            for (int cz = Math.min(min.z, max.z); cz <= Math.max(min.z, max.z); cz++) {
+                if (world.setChunkForced(cx, cz, true)) {
+                    forced.add(new ChunkPos(cx, cz));
+                }
+            }
+        }
+    }
+
+    private void cleanup() {
+        PhysicsEngine.setRedirectsEnabled(true);
+        QueryTimer.setEnabled(false);
+
+        for (Entity entity : spawned) {
+            entity.discard();
+        }
+        spawned.clear();
+
+        for (BlockPos pos : placed) {
+            context.setBlockState(pos, Blocks.AIR.getDefaultState());
+        }
+        placed.clear();
+
+        ServerWorld world = context.getWorld();
+        for (ChunkPos pos : forced) {
+            world.setChunkForced(pos.x, pos.z, false);
+        }
+        forced.clear();
+    }
+}
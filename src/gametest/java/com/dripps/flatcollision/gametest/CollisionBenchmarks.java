@@ -0,0 +1,70 @@
+package com.dripps.flatcollision.gametest;
+
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.entity.EntityType;
+import net.minecraft.test.TestContext;
+
+import java.util.Random;
+
+/**
+ * A/B benchmark scenarios, vanilla entity queries against the flat engine in
+ * the same world. each scenario has its own test environment so batches run
+ * one after another and never share a tick. results go to the csv report,
+ * see {@link BenchmarkReport}.
+ */
+public class CollisionBenchmarks {
+
+    private static final long SEED = 0x5EEDL;
+
+    /** loose herd, mostly single entity cells, baseline for query overhead */
+    @GameTest(environment = "flatcollision-gametest:spread_herd", maxTicks = BenchmarkRun.MAX_TICKS)
+    public void spreadHerd(TestContext context) {
+        BenchmarkRun.start(context, "spread_herd", 64, run -> {
+            run.walls(0, 0, 63, 63, 2);
+            Random random = new Random(SEED);
+            for (int i = 0; i < 400; i++) {
+                run.spawn(EntityType.COW, 1.5 + random.nextInt(61), 1.5 + random.nextInt(61));
+            }
+        });
+    }
+
+    /** small pens kept under the cramming limit, every query hits a full cell */
+    @GameTest(environment = "flatcollision-gametest:cramming_pen", maxTicks = BenchmarkRun.MAX_TICKS)
+    public void crammingPen(TestContext context) {
+        BenchmarkRun.start(context, "cramming_pen", 32, run -> {
+            Random random = new Random(SEED);
+            for (int pen = 0; pen < 8; pen++) {
+                int x0 = (pen % 4) * 8;
+                int z0 = (pen / 4) * 8;
+                run.walls(x0, z0, x0 + 4, z0 + 4, 2);
+                for (int i = 0; i < 20; i++) {
+                    run.spawn(EntityType.COW, x0 + 1.2 + random.nextDouble() * 2.6,
+                            z0 + 1.2 + random.nextDouble() * 2.6);
+                }
+            }
+        });
+    }
+
+    /** thousands of resting item entities, vanilla section scans get long */
+    @GameTest(environment = "flatcollision-gametest:item_flood", maxTicks = BenchmarkRun.MAX_TICKS)
+    public void itemFlood(TestContext context) {
+        BenchmarkRun.start(context, "item_flood", 32, run -> {
+            Random random = new Random(SEED);
+            for (int i = 0; i < 2000; i++) {
+                run.spawnFullStack(0.5 + random.nextDouble() * 31, 0.5 + random.nextDouble() * 31);
+            }
+        });
+    }
+
+    /** hard colliders piled in a pit, stresses getEntityCollisions */
+    @GameTest(environment = "flatcollision-gametest:boat_pile", maxTicks = BenchmarkRun.MAX_TICKS)
+    public void boatPile(TestContext context) {
+        BenchmarkRun.start(context, "boat_pile", 16, run -> {
+            run.walls(2, 2, 13, 13, 3);
+            Random random = new Random(SEED);
+            for (int i = 0; i < 150; i++) {
+                run.spawn(EntityType.OAK_BOAT, 3.5 + random.nextDouble() * 9, 3.5 + random.nextDouble() * 9);
+            }
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package com.dripps.flatcollision.gametest;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+
+import java.util.Arrays;
+
+/**
+ * records full server tick durations while armed. start and end hooks wrap
+ * the whole tick, so MSPT includes every world and the engine lifecycle.
+ */
+public final class TickRecorder implements ModInitializer {
+
+    private static final LongArrayList TICK_NANOS = new LongArrayList();
+
+    private static boolean armed;
+    private static long tickStart;
+
+    @Override
+    public void onInitialize() {
+        ServerTickEvents.START_SERVER_TICK.register(server -> tickStart = System.nanoTime());
+
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (armed) {
+                TICK_NANOS.add(System.nanoTime() - tickStart);
+            }
+        });
+    }
+
+    /** clears samples and starts recording from next tick */
+    public static void arm() {
+        TICK_NANOS.clear();
+        armed = true;
+    }
+
+    /** stops recording and returns a sorted copy of the samples */
+    public static long[] disarm() {
+        armed = false;
+        long[] samples = TICK_NANOS.toLongArray();
+        Arrays.sort(samples);
+        return samples;
+    }
+}
@@ -10,7 +10,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * server side entry point. registers hooks to sync per world {@link PhysicsEngine}
- * instances with vanilla lifecycle events (world load, entity load, tick start).
+ * instances with vanilla lifecycle events (world load, entity load, tick start/end).
  */
 public class Flatcollision implements ModInitializer {
 
@@ -21,6 +21,8 @@ public class Flatcollision implements ModInitializer {
     public void onInitialize() {
         LOGGER.info("[FlatCollision] starting cache aware physics optimization and drinking matcha ew");
 
+        FlatcollisionConfig.load();
+
         ServerWorldEvents.LOAD.register((server, world) -> {
             PhysicsEngine.getOrCreate(world);
         });
@@ -44,10 +46,14 @@ public class Flatcollision implements ModInitializer {
         });
 
         ServerTickEvents.START_SERVER_TICK.register(server -> {
+            PhysicsEngine.tickStartAll(server.getWorlds());
+        });
+
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
             for (var world : server.getWorlds()) {
                 PhysicsEngine engine = PhysicsEngine.get(world);
                 if (engine != null) {
-                    engine.onTickStart();
+                    engine.onTickEnd();
                 }
             }
         });
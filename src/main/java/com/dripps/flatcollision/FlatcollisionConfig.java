@@ -0,0 +1,155 @@
+package com.dripps.flatcollision;
+
+import net.fabricmc.loader.api.FabricLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * runtime options read from config/flatcollision.properties. missing keys fall
+ * back to defaults, file is written back so every option stays visible.
+ */
+public final class FlatcollisionConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("FlatCollision/Config");
+
+    private static final String FILE_NAME = "flatcollision.properties";
+
+    /** untracked entities are tombstoned and compacted once at tick end */
+    public static boolean deferredRemoval = false;
+
+    /** client world gets its own engine for local prediction queries */
+    public static boolean clientEngine = false;
+
+    /** server worlds sync their engines on a fork join pool at tick start */
+    public static boolean parallelTickStart = false;
+
+    /** worlds tracking at least this many entities also split their own sync across the pool */
+    public static int parallelSyncThreshold = 16384;
+
+    /** max particle sectors (64 block cubes with a ring buffer) kept at once, LRU evicted beyond */
+    public static int particleSectorBudget = 128;
+
+    /** max particle slots summed over all sector rings, bounds their heap column bytes, rings grow under pressure within it */
+    public static int particleSlotBudget = 262144;
+
+    /** particle sectors without live particles for this many ticks are evicted */
+    public static int particleSectorIdleTicks = 200;
+
+    /** use the vector API particle kernel when jdk.incubator.vector is present */
+    public static boolean particleSimd = true;
+
+    /** tick and collide particle sectors on a fork join pool */
+    public static boolean particleParallel = false;
+
+    /** alive particles below this stay on the client thread even in parallel mode */
+    public static int particleParallelThreshold = 8192;
+
+    /** camera distance level of detail for particle sectors */
+    public static boolean particleLod = true;
+
+    /** sectors within this chebyshev distance (64 block sectors) get full detail */
+    public static int particleLodNearSectors = 1;
+
+    /** sectors beyond this distance tick every other tick and skip collision */
+    public static int particleLodFarSectors = 3;
+
+    /** far sectors keep 1 in N new particles */
+    public static int particleFarThinning = 4;
+
+    /** max particles stored per tick, 0 disables the budget */
+    public static int particleEmitBudget = 4096;
+
+    /** mobs out of range of every player skip ticks, see ActivationRange */
+    public static boolean activationRange = false;
+
+    /** horizontal activation range in blocks for monsters */
+    public static int activationMonsterRange = 32;
+
+    /** horizontal activation range in blocks for animals and water mobs */
+    public static int activationAnimalRange = 32;
+
+    /** horizontal activation range in blocks for villagers, golems and other misc mobs */
+    public static int activationMiscRange = 16;
+
+    /** inactive mobs still tick once every N ticks */
+    public static int activationWakeInterval = 20;
+
+    /** 1 in N redirected queries also run vanilla and compare, 0 disables */
+    public static int shadowSampleRate = 0;
+
+    private static boolean loaded = false;
+
+    private FlatcollisionConfig() {}
+
+    /** loads options once, safe to call from both entrypoints */
+    public static synchronized void load() {
+        if (loaded) return;
+        loaded = true;
+
+        Path path = FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+        Properties props = new Properties();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                props.load(reader);
+            } catch (IOException e) {
+                LOGGER.warn("[FlatCollision] could not read {}, using defaults", path, e);
+            }
+        }
+
+        deferredRemoval = getBoolean(props, "engine.deferredRemoval", deferredRemoval);
+        clientEngine = getBoolean(props, "engine.client", clientEngine);
+        parallelTickStart = getBoolean(props, "engine.parallelTickStart", parallelTickStart);
+        parallelSyncThreshold = Math.max(0, getInt(props, "engine.parallelSyncThreshold", parallelSyncThreshold));
+        particleSectorBudget = Math.max(1, getInt(props, "particles.sectorBudget", particleSectorBudget));
+        particleSlotBudget = Math.max(1024, getInt(props, "particles.slotBudget", particleSlotBudget));
+        particleSectorIdleTicks = Math.max(0, getInt(props, "particles.sectorIdleTicks", particleSectorIdleTicks));
+        particleSimd = getBoolean(props, "particles.simd", particleSimd);
+        particleParallel = getBoolean(props, "particles.parallel", particleParallel);
+        particleParallelThreshold = Math.max(0, getInt(props, "particles.parallelThreshold", particleParallelThreshold));
+        particleLod = getBoolean(props, "particles.lod", particleLod);
+        particleLodNearSectors = Math.max(0, getInt(props, "particles.lodNearSectors", particleLodNearSectors));
+        particleLodFarSectors = Math.max(particleLodNearSectors, getInt(props, "particles.lodFarSectors", particleLodFarSectors));
+        particleFarThinning = Math.max(1, getInt(props, "particles.farThinning", particleFarThinning));
+        particleEmitBudget = Math.max(0, getInt(props, "particles.emitBudget", particleEmitBudget));
+        activationRange = getBoolean(props, "activation.enabled", activationRange);
+        activationMonsterRange = Math.max(0, getInt(props, "activation.monsterRange", activationMonsterRange));
+        activationAnimalRange = Math.max(0, getInt(props, "activation.animalRange", activationAnimalRange));
+        activationMiscRange = Math.max(0, getInt(props, "activation.miscRange", activationMiscRange));
+        activationWakeInterval = Math.max(1, getInt(props, "activation.wakeInterval", activationWakeInterval));
+        shadowSampleRate = Math.max(0, getInt(props, "shadow.sampleRate", shadowSampleRate));
+
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            props.store(writer, "FlatCollision options");
+        } catch (IOException e) {
+            LOGGER.warn("[FlatCollision] could not write {}", path, e);
+        }
+    }
+
+    private static boolean getBoolean(Properties props, String key, boolean def) {
+        String raw = props.getProperty(key);
+        boolean value = raw != null ? Boolean.parseBoolean(raw.trim()) : def;
+        props.setProperty(key, Boolean.toString(value));
+        return value;
+    }
+
+    private static int getInt(Properties props, String key, int def) {
+        String raw = props.getProperty(key);
+        int value = def;
+        if (raw != null) {
+            try {
+                value = Integer.parseInt(raw.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warn("[FlatCollision] bad value for {}: {}, using {}", key, raw, def);
+            }
+        }
+        props.setProperty(key, Integer.toString(value));
+        return value;
+    }
+}
@@ -0,0 +1,245 @@
+package com.dripps.flatcollision.core;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * pure part of collision queries. collects candidate slots from grid cells and
+ * the oversized list, then keeps only slots whose SoA box overlaps the query
+ * box. callers dereference bodies for the surviving slots only. hard collider
+ * and player queries use flagged indexes holding only those slots.
+ */
+public final class BodyQuery {
+
+    private final SoAEntityData data;
+    private final BodySlotMap<?> slotMap;
+    private final SpatialGrid grid;
+    private final OversizedEntityList oversized;
+    private final FlaggedIndex hardIndex;
+    private final FlaggedIndex playerIndex;
+
+    /** scratch list to avoid per query allocation */
+    private final IntArrayList candidateScratch = new IntArrayList(256);
+
+    /** merge sweep scratch: initiators grouped by home cell, and one neighborhood */
+    private final Long2ObjectOpenHashMap<IntArrayList> initiatorCells = new Long2ObjectOpenHashMap<>();
+    private final IntArrayList neighborScratch = new IntArrayList(256);
+    private final IntComparator byMinX;
+
+    public BodyQuery(SoAEntityData data, BodySlotMap<?> slotMap,
+                     SpatialGrid grid, OversizedEntityList oversized,
+                     FlaggedIndex hardIndex, FlaggedIndex playerIndex) {
+        this.data = data;
+        this.slotMap = slotMap;
+        this.grid = grid;
+        this.oversized = oversized;
+        this.hardIndex = hardIndex;
+        this.playerIndex = playerIndex;
+        this.byMinX = (a, b) -> Double.compare(data.getMinX(a), data.getMinX(b));
+    }
+
+    /**
+     * appends slots overlapping the box to out. tombstoned slots are skipped
+     * before the AABB test, no body is dereferenced.
+     */
+    public void collectOverlapping(double minX, double minY, double minZ,
+                                   double maxX, double maxY, double maxZ,
+                                   IntArrayList out) {
+        collect(grid, oversized, minX, minY, minZ, maxX, maxY, maxZ, out);
+    }
+
+    /** same as collectOverlapping but only over hard collider slots */
+    public void collectHardOverlapping(double minX, double minY, double minZ,
+                                       double maxX, double maxY, double maxZ,
+                                       IntArrayList out) {
+        collect(hardIndex.grid, hardIndex.oversized, minX, minY, minZ, maxX, maxY, maxZ, out);
+    }
+
+    /** appends player slots whose feet position lies within radius of the point */
+    public void collectPlayersWithinRadius(double x, double y, double z, double radius,
+                                           IntArrayList out) {
+        candidateScratch.clear();
+        playerIndex.grid.collectSlotsInBox(x - radius, z - radius, x + radius, z + radius, candidateScratch);
+        playerIndex.oversized.collectAll(candidateScratch);
+
+        int[] slots = candidateScratch.elements();
+        int count = candidateScratch.size();
+        int active = slotMap.activeCount();
+        double radiusSq = radius * radius;
+
+        for (int i = 0; i < count; i++) {
+            int slot = slots[i];
+            if (slot < 0 || slot >= active) continue;
+            if (data.isTombstoned(slot)) continue;
+
+            double dx = data.getPosX(slot) - x;
+            double dy = data.getPosY(slot) - y;
+            double dz = data.getPosZ(slot) - z;
+            if (dx * dx + dy * dy + dz * dz <= radiusSq) {
+                out.add(slot);
+            }
+        }
+    }
+
+    /**
+     * appends slots overlapping the box whose feet position lies within radius
+     * of the center. one pass over the candidates, squared distance straight
+     * from the SoA columns.
+     */
+    public void collectWithinRadius(double minX, double minY, double minZ,
+                                    double maxX, double maxY, double maxZ,
+                                    double centerX, double centerY, double centerZ,
+                                    double radius, IntArrayList out) {
+        candidateScratch.clear();
+        grid.collectSlotsInBox(minX, minZ, maxX, maxZ, candidateScratch);
+        oversized.collectAll(candidateScratch);
+
+        int[] slots = candidateScratch.elements();
+        int count = candidateScratch.size();
+        int active = slotMap.activeCount();
+        double radiusSq = radius * radius;
+
+        for (int i = 0; i < count; i++) {
+            int slot = slots[i];
+            if (slot < 0 || slot >= active) continue;
+            if (data.isTombstoned(slot)) continue;
+
+            double dx = data.getPosX(slot) - centerX;
+            double dy = data.getPosY(slot) - centerY;
+            double dz = data.getPosZ(slot) - centerZ;
+            if (dx * dx + dy * dy + dz * dz > radiusSq) continue;
+
+            if (data.overlapsBox(slot, minX, minY, minZ, maxX, maxY, maxZ)) {
+                out.add(slot);
+            }
+        }
+    }
+
+    /**
+     * appends slots whose feet position lies within a horizontal radius of
+     * the center, any height. squared distance from the SoA columns only.
+     */
+    public void collectWithinHorizontalRadius(double centerX, double centerZ, double radius,
+                                              IntArrayList out) {
+        candidateScratch.clear();
+        grid.collectSlotsInBox(centerX - radius, centerZ - radius,
+                centerX + radius, centerZ + radius, candidateScratch);
+        oversized.collectAll(candidateScratch);
+
+        int[] slots = candidateScratch.elements();
+        int count = candidateScratch.size();
+        int active = slotMap.activeCount();
+        double radiusSq = radius * radius;
+
+        for (int i = 0; i < count; i++) {
+            int slot = slots[i];
+            if (slot < 0 || slot >= active) continue;
+            if (data.isTombstoned(slot)) continue;
+
+            double dx = data.getPosX(slot) - centerX;
+            double dz = data.getPosZ(slot) - centerZ;
+            if (dx * dx + dz * dz <= radiusSq) {
+                out.add(slot);
+            }
+        }
+    }
+
+    /**
+     * merge pair sweep. initiators are grouped by home cell, then per cell the
+     * same kind slots of the 3x3 neighborhood and the cell's initiators are
+     * sorted by min x and swept once, so a pile of items in one cell costs a
+     * sort instead of a box query per item. appends initiator, other pairs
+     * whose boxes overlap with the initiator's box grown by the expansion.
+     * grid slots only, mergeable bodies are never oversized.
+     */
+    public void collectMergePairs(IntArrayList initiators, int kind,
+                                  double expandXZ, double expandY, IntArrayList out) {
+        Long2ObjectOpenHashMap<IntArrayList> byCell = initiatorCells;
+        int[] init = initiators.elements();
+        for (int i = 0, n = initiators.size(); i < n; i++) {
+            int slot = init[i];
+            if (data.isOversized(slot)) continue;
+            long key = SpatialGrid.packKey(SpatialGrid.toCellCoord(data.getPosX(slot)),
+                    SpatialGrid.toCellCoord(data.getPosZ(slot)));
+            byCell.computeIfAbsent(key, k -> new IntArrayList()).add(slot);
+        }
+
+        int active = slotMap.activeCount();
+        for (var entry : byCell.long2ObjectEntrySet()) {
+            long key = entry.getLongKey();
+            IntArrayList owned = entry.getValue();
+
+            candidateScratch.clear();
+            grid.collectNeighborSlots((int) (key >> 32), (int) key, candidateScratch);
+
+            neighborScratch.clear();
+            double maxWidth = 0.0;
+            int[] c = candidateScratch.elements();
+            for (int i = 0, n = candidateScratch.size(); i < n; i++) {
+                int slot = c[i];
+                if (slot < 0 || slot >= active) continue;
+                if (data.isTombstoned(slot) || data.getMergeKind(slot) != kind) continue;
+                neighborScratch.add(slot);
+                maxWidth = Math.max(maxWidth, data.getHalfWidth(slot) * 2.0);
+            }
+            if (neighborScratch.size() < 2) continue;
+
+            int[] nb = neighborScratch.elements();
+            int nbCount = neighborScratch.size();
+            IntArrays.quickSort(nb, 0, nbCount, byMinX);
+            int[] own = owned.elements();
+            IntArrays.quickSort(own, 0, owned.size(), byMinX);
+
+            // both lists ascend in min x, so the window start only moves forward
+            int start = 0;
+            for (int i = 0, n = owned.size(); i < n; i++) {
+                int a = own[i];
+                double minX = data.getMinX(a) - expandXZ;
+                double maxX = data.getMaxX(a) + expandXZ;
+                double minY = data.getMinY(a) - expandY;
+                double maxY = data.getMaxY(a) + expandY;
+                double minZ = data.getMinZ(a) - expandXZ;
+                double maxZ = data.getMaxZ(a) + expandXZ;
+
+                while (start < nbCount && data.getMinX(nb[start]) <= minX - maxWidth) start++;
+                for (int j = start; j < nbCount; j++) {
+                    int b = nb[j];
+                    if (data.getMinX(b) >= maxX) break;
+                    if (b == a) continue;
+                    if (data.overlapsBox(b, minX, minY, minZ, maxX, maxY, maxZ)) {
+                        out.add(a);
+                        out.add(b);
+                    }
+                }
+            }
+        }
+
+        byCell.clear();
+    }
+
+    private void collect(SpatialGrid cells, OversizedEntityList wide,
+                         double minX, double minY, double minZ,
+                         double maxX, double maxY, double maxZ,
+                         IntArrayList out) {
+        candidateScratch.clear();
+        cells.collectSlotsInBox(minX, minZ, maxX, maxZ, candidateScratch);
+        wide.collectAll(candidateScratch);
+
+        int[] slots = candidateScratch.elements();
+        int count = candidateScratch.size();
+        int active = slotMap.activeCount();
+
+        for (int i = 0; i < count; i++) {
+            int slot = slots[i];
+            if (slot < 0 || slot >= active) continue;
+            if (data.isTombstoned(slot)) continue;
+
+            // fast AABB overlap from SoA
+            if (data.overlapsBox(slot, minX, minY, minZ, maxX, maxY, maxZ)) {
+                out.add(slot);
+            }
+        }
+    }
+}
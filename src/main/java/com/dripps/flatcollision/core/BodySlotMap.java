@@ -0,0 +1,251 @@
+package com.dripps.flatcollision.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * bidirectional mapping between body IDs and dense SoA slot indices.
+ * uses swap and pop strategy to keep active region packed with no gaps.
+ * release/compact allow holes to be tombstoned first and closed in bulk.
+ */
+public final class BodySlotMap<B extends PhysicsBody> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** sentinel value for missing entries in int map */
+    private static final int MISSING = -1;
+
+    /** order preserving compaction is used while it shifts at most this many slots per hole */
+    private static final int STABLE_SHIFT_FACTOR = 4;
+
+    /** sparse body id to slot index map, no autoboxing */
+    private final Int2IntOpenHashMap bodyIdToSlot = new Int2IntOpenHashMap();
+
+    /** dense slot index to body reference array */
+    private B[] slotToBody;
+
+    /** number of active slots, includes released holes until compact runs */
+    private int activeCount;
+
+    /** slots released by release and not yet closed by compact */
+    private final IntArrayList holes = new IntArrayList();
+
+    private final SoAEntityData data;
+
+    public BodySlotMap(SoAEntityData data) {
+        this.data = data;
+        this.slotToBody = newArray(INITIAL_CAPACITY);
+        this.activeCount = 0;
+        bodyIdToSlot.defaultReturnValue(MISSING);
+    }
+
+    public int activeCount() {
+        return activeCount;
+    }
+
+    /** returns slot index for body or -1 if not tracked */
+    public int getSlot(B body) {
+        return bodyIdToSlot.get(body.bodyId());
+    }
+
+    /** returns slot index for body id or -1 if not tracked */
+    public int getSlot(int bodyId) {
+        return bodyIdToSlot.get(bodyId);
+    }
+
+    /** returns body reference at slot, null for holes */
+    @Nullable
+    public B getBody(int slot) {
+        if (slot < 0 || slot >= activeCount) return null;
+        return slotToBody[slot];
+    }
+
+    public boolean isTracked(B body) {
+        return bodyIdToSlot.containsKey(body.bodyId());
+    }
+
+    /**
+     * allocates new slot for body and writes initial physics data.
+     * returns allocated slot index or -1 if already tracked.
+     */
+    public int allocate(B body) {
+        int id = body.bodyId();
+        if (bodyIdToSlot.containsKey(id)) return -1;
+
+        int slot = activeCount;
+        ensureSlotCapacity(slot + 1);
+
+        bodyIdToSlot.put(id, slot);
+        slotToBody[slot] = body;
+        activeCount++;
+
+        data.setFlags(slot, (byte) 0);
+        syncBodyToSlot(body, slot);
+        data.setSize(activeCount);
+        return slot;
+    }
+
+    /**
+     * removes body using swap and pop. last active body data moves into
+     * vacated slot. returns freed slot index or -1 if not tracked.
+     */
+    public int free(B body) {
+        int removedSlot = bodyIdToSlot.remove(body.bodyId());
+        if (removedSlot == MISSING) return -1;
+        int lastSlot = activeCount - 1;
+
+        if (removedSlot != lastSlot) {
+            B lastBody = slotToBody[lastSlot];
+            slotToBody[removedSlot] = lastBody;
+            bodyIdToSlot.put(lastBody.bodyId(), removedSlot);
+
+            data.copySlot(lastSlot, removedSlot);
+        }
+
+        slotToBody[lastSlot] = null;
+        activeCount--;
+        data.setSize(activeCount);
+        return removedSlot;
+    }
+
+    /**
+     * detaches body from its slot without moving any data. slot is marked as
+     * tombstone and stays as a null hole until compact runs. returns released
+     * slot or -1 if not tracked.
+     */
+    public int release(B body) {
+        int slot = bodyIdToSlot.remove(body.bodyId());
+        if (slot == MISSING) return -1;
+        slotToBody[slot] = null;
+        data.markTombstone(slot);
+        holes.add(slot);
+        return slot;
+    }
+
+    /** number of released slots waiting for compact */
+    public int holeCount() {
+        return holes.size();
+    }
+
+    /** released slots waiting for compact, do not modify */
+    public IntArrayList holes() {
+        return holes;
+    }
+
+    /**
+     * closes all holes left by release in one pass. when holes sit near the end
+     * live slots slide down keeping their relative order, otherwise slots from
+     * the tail fill the holes. only moved bodies touch the id map, moved
+     * pairs are appended to from/to for index fix up.
+     */
+    public void compact(IntArrayList movedFrom, IntArrayList movedTo) {
+        int holeCount = holes.size();
+        if (holeCount == 0) return;
+
+        int newCount = activeCount - holeCount;
+        int[] h = holes.elements();
+
+        int first = h[0];
+        for (int i = 1; i < holeCount; i++) {
+            if (h[i] < first) first = h[i];
+        }
+
+        if (activeCount - first <= (long) holeCount * STABLE_SHIFT_FACTOR) {
+            compactStable(first, movedFrom, movedTo);
+        } else {
+            compactFromTail(newCount, movedFrom, movedTo);
+        }
+
+        holes.clear();
+        activeCount = newCount;
+        data.setSize(activeCount);
+    }
+
+    /** slides live slots above first hole down, keeps relative slot order */
+    private void compactStable(int first, IntArrayList movedFrom, IntArrayList movedTo) {
+        int write = first;
+        for (int read = first; read < activeCount; read++) {
+            B moved = slotToBody[read];
+            if (moved == null) continue;
+
+            if (read != write) {
+                slotToBody[write] = moved;
+                slotToBody[read] = null;
+                bodyIdToSlot.put(moved.bodyId(), write);
+                data.copySlot(read, write);
+
+                movedFrom.add(read);
+                movedTo.add(write);
+            }
+            write++;
+        }
+    }
+
+    /** moves live tail slots into holes below new count, fewest copies */
+    private void compactFromTail(int newCount, IntArrayList movedFrom, IntArrayList movedTo) {
+        int tail = activeCount - 1;
+        int[] h = holes.elements();
+
+        for (int i = 0, n = holes.size(); i < n; i++) {
+            int hole = h[i];
+            if (hole >= newCount) continue;
+
+            while (slotToBody[tail] == null) tail--;
+
+            B moved = slotToBody[tail];
+            slotToBody[hole] = moved;
+            slotToBody[tail] = null;
+            bodyIdToSlot.put(moved.bodyId(), hole);
+            data.copySlot(tail, hole);
+
+            movedFrom.add(tail);
+            movedTo.add(hole);
+            tail--;
+        }
+    }
+
+    /** syncs body state into SoA slot */
+    public void syncBodyToSlot(B body, int slot) {
+        data.setPosition(slot, body.bodyX(), body.bodyY(), body.bodyZ());
+        data.setVelocity(slot, body.bodyVelX(), body.bodyVelY(), body.bodyVelZ());
+        data.setDimensions(slot, body.bodyWidth() / 2.0, body.bodyHeight());
+    }
+
+    /** bulk syncs all tracked body positions into SoA arrays */
+    public void syncAll() {
+        for (int i = 0; i < activeCount; i++) {
+            B b = slotToBody[i];
+            if (b != null && b.isBodyAlive()) {
+                syncBodyToSlot(b, i);
+            }
+        }
+    }
+
+    private void ensureSlotCapacity(int required) {
+        data.ensureCapacity(required);
+        if (required > slotToBody.length) {
+            int newLen = Math.max(slotToBody.length * 2, required);
+            B[] grown = newArray(newLen);
+            System.arraycopy(slotToBody, 0, grown, 0, activeCount);
+            slotToBody = grown;
+        }
+    }
+
+    /** erasure of B is PhysicsBody, so the backing array can be typed as such */
+    @SuppressWarnings("unchecked")
+    private static <B extends PhysicsBody> B[] newArray(int length) {
+        return (B[]) new PhysicsBody[length];
+    }
+
+    /** releases all references */
+    public void clear() {
+        bodyIdToSlot.clear();
+        holes.clear();
+        for (int i = 0; i < activeCount; i++) {
+            slotToBody[i] = null;
+        }
+        activeCount = 0;
+        data.setSize(0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.dripps.flatcollision.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * secondary index over slots carrying one SoA flag, hard colliders or
+ * players. same grid plus oversized list layout as the main index, kept in
+ * step by {@link PhysicsCore} on track, untrack, compaction and cell
+ * migration. bulk paths stage slots first so grid cells are touched once.
+ */
+final class FlaggedIndex {
+
+    final byte flag;
+    final SpatialGrid grid = new SpatialGrid();
+    final OversizedEntityList oversized = new OversizedEntityList();
+
+    /** staged grid slots of the current bulk operation */
+    private final IntArrayList scratch = new IntArrayList();
+
+    private int size;
+
+    FlaggedIndex(byte flag) {
+        this.flag = flag;
+    }
+
+    boolean matches(byte flags) {
+        return (flags & flag) != 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void insert(int slot, boolean wide, double x, double z) {
+        if (wide) oversized.add(slot);
+        else grid.insert(slot, x, z);
+        size++;
+    }
+
+    void remove(int slot, boolean wide, double x, double z) {
+        if (wide) oversized.remove(slot);
+        else grid.remove(slot, x, z);
+        size--;
+    }
+
+    void beginBulk() {
+        scratch.clear();
+    }
+
+    /** oversized slots go in directly, grid slots wait for insertStaged */
+    void stageInsert(int slot, boolean wide) {
+        if (wide) oversized.add(slot);
+        else scratch.add(slot);
+        size++;
+    }
+
+    void insertStaged(SoAEntityData data) {
+        if (!scratch.isEmpty()) grid.insertAll(scratch, data);
+    }
+
+    /** oversized slots leave directly, grid slots wait for removeStaged */
+    void stageRemove(int slot, boolean wide) {
+        if (wide) oversized.remove(slot);
+        else scratch.add(slot);
+        size--;
+    }
+
+    void removeStaged(SoAEntityData data) {
+        if (!scratch.isEmpty()) grid.removeAll(scratch, data);
+    }
+
+    /** renames compacted slots, moved slots carry their flags to the new slot */
+    void relabel(Int2IntOpenHashMap remap, IntArrayList movedTo, SoAEntityData data) {
+        scratch.clear();
+        int[] to = movedTo.elements();
+        for (int i = 0, n = movedTo.size(); i < n; i++) {
+            if (matches(data.getFlags(to[i]))) scratch.add(to[i]);
+        }
+        if (!scratch.isEmpty()) grid.relabelAll(remap, scratch, data);
+        oversized.relabelAll(remap);
+    }
+
+    void clear() {
+        grid.clear();
+        oversized.clear();
+        scratch.clear();
+        size = 0;
+    }
+}
@@ -1,5 +1,6 @@
-package com.dripps.flatcollision.engine;
+package com.dripps.flatcollision.core;
 
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 /**
@@ -24,6 +25,15 @@ public final class OversizedEntityList {
         slots.rem(slot);
     }
 
+    /** renames slots moved by compaction, remap is old slot to new slot */
+    public void relabelAll(Int2IntOpenHashMap remap) {
+        int[] s = slots.elements();
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            int moved = remap.get(s[i]);
+            if (moved >= 0) s[i] = moved;
+        }
+    }
+
     /** appends all slot ids to output list without clearing */
     public void collectAll(IntArrayList out) {
         out.addAll(slots);
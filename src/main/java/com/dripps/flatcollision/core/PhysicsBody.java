@@ -0,0 +1,63 @@
+package com.dripps.flatcollision.core;
+
+/**
+ * minimal view of a simulated body the core needs. minecraft entities get it
+ * through a mixin, the headless simulator uses plain objects. names carry a
+ * body prefix so they never clash with methods of the implementing class.
+ */
+public interface PhysicsBody {
+
+    /** stable unique id, used as slot map key */
+    int bodyId();
+
+    /** feet position, box is centered on x/z and extends up from y */
+    double bodyX();
+    double bodyY();
+    double bodyZ();
+
+    double bodyVelX();
+    double bodyVelY();
+    double bodyVelZ();
+
+    /** full box width in blocks */
+    double bodyWidth();
+
+    double bodyHeight();
+
+    /** false once the body should be dropped from tracking */
+    boolean isBodyAlive();
+
+    /**
+     * true for bodies other bodies collide with (boats, minecarts, shulkers).
+     * read once when tracked, puts the body into the hard collider index.
+     */
+    default boolean isBodyHardCollider() {
+        return false;
+    }
+
+    /** true for player bodies, read once when tracked, puts the body into the player index */
+    default boolean isBodyPlayer() {
+        return false;
+    }
+
+    /**
+     * activation range group, read once when tracked. 0 keeps the body active
+     * regardless of player distance, other values index the range table.
+     */
+    default int bodyActivationGroup() {
+        return 0;
+    }
+
+    /**
+     * spawn group the body counts against, 1..{@link SpatialGrid#SPAWN_GROUPS},
+     * 0 when it does not count. re-read every tick start since it can change.
+     */
+    default int bodySpawnGroup() {
+        return 0;
+    }
+
+    /** merge kind, read once when tracked. bodies only pair with the same non zero kind */
+    default int bodyMergeKind() {
+        return 0;
+    }
+}
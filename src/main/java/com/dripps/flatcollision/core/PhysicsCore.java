@@ -0,0 +1,791 @@
+package com.dripps.flatcollision.core;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * game independent physics core. owns SoA data, slot map, spatial grid,
+ * oversized list, staging queue and body query, and drives them against the
+ * {@link PhysicsBody} interface. hard colliders and players are indexed a
+ * second time in their own {@link FlaggedIndex} so collision shape and
+ * player proximity queries skip every other body. tick lifecycle flushes
+ * staging queue, syncs positions, updates grid, then serves queries. with
+ * deferred removal, untracked slots are tombstoned and closed at tick end.
+ */
+public final class PhysicsCore<B extends PhysicsBody> {
+
+    private final SoAEntityData data;
+    private final BodySlotMap<B> slotMap;
+    private final SpatialGrid grid;
+    private final OversizedEntityList oversized;
+    private final FlaggedIndex hardIndex;
+    private final FlaggedIndex playerIndex;
+    private final FlaggedIndex[] flaggedIndexes;
+    private final BodyQuery query;
+    private final StagingQueue<B> staging;
+
+    /** slots per task when the tick start sync is split across a pool */
+    private static final int SYNC_BLOCK = 4096;
+
+    /** per block change logs of the tick start sync, reused across ticks */
+    private SyncLog[] syncLogs = {new SyncLog()};
+
+    /** slot count and logs in use between the parts of a split tick start */
+    private int syncCount;
+    private int syncBlocks;
+
+    /** player feet positions gathered by the activation pass */
+    private double[] playerX = new double[8];
+    private double[] playerZ = new double[8];
+
+    /** scratch lists for bulk track/untrack and compaction fix up */
+    private final IntArrayList bulkScratch = new IntArrayList();
+    private final IntArrayList movedFrom = new IntArrayList();
+    private final IntArrayList movedTo = new IntArrayList();
+    private final Int2IntOpenHashMap remapScratch = new Int2IntOpenHashMap();
+
+    /** removals only tombstone slots, compaction runs once in tickEnd */
+    private final boolean deferredRemoval;
+
+    /** tracks whether core is active */
+    private volatile boolean active = true;
+
+    public PhysicsCore(boolean deferredRemoval) {
+        this.data = new SoAEntityData();
+        this.slotMap = new BodySlotMap<>(data);
+        this.grid = new SpatialGrid();
+        this.oversized = new OversizedEntityList();
+        this.hardIndex = new FlaggedIndex(SoAEntityData.FLAG_HARD);
+        this.playerIndex = new FlaggedIndex(SoAEntityData.FLAG_PLAYER);
+        this.flaggedIndexes = new FlaggedIndex[] {hardIndex, playerIndex};
+        this.query = new BodyQuery(data, slotMap, grid, oversized, hardIndex, playerIndex);
+        this.staging = new StagingQueue<>();
+        this.deferredRemoval = deferredRemoval;
+        this.remapScratch.defaultReturnValue(-1);
+    }
+
+    /** called at start of each tick, serial sync, see {@link #tickStart(ForkJoinPool)} */
+    public void tickStart() {
+        tickStart(null);
+    }
+
+    /**
+     * called at start of each tick. drains staging queue, syncs body positions
+     * to SoA arrays, and updates spatial grid for moved bodies. with a pool it
+     * runs as {@link #beginTickStart}, {@link #syncPositions} and
+     * {@link #finishTickStart}, so grid, indexes and counters end up exactly
+     * as after a serial pass.
+     */
+    public void tickStart(@Nullable ForkJoinPool pool) {
+        if (!active) return;
+        if (pool != null) {
+            beginTickStart();
+            syncPositions(pool);
+            finishTickStart();
+            return;
+        }
+
+        staging.flush(this);
+        ensureSyncLogs(1);
+        syncBlock(0, 0, slotMap.activeCount(), true);
+        applySyncLog(syncLogs[0]);
+    }
+
+    /** first part of a split tick start, drains the staging queue. server thread */
+    public void beginTickStart() {
+        if (!active) return;
+        staging.flush(this);
+        syncCount = slotMap.activeCount();
+        syncBlocks = 0;
+    }
+
+    /**
+     * middle part of a split tick start, safe on pool workers while the
+     * ticking thread waits: reads only liveness, position, velocity and box
+     * of each body and writes only its own SoA slots. spawn groups run
+     * arbitrary entity code, they are left to {@link #finishTickStart}. with
+     * a pool the slots are split into blocks, each logging bodies that died
+     * or changed cell.
+     */
+    public void syncPositions(@Nullable ForkJoinPool pool) {
+        if (!active) return;
+
+        int count = syncCount;
+        int blocks = pool == null ? 1 : Math.max(1, (count + SYNC_BLOCK - 1) / SYNC_BLOCK);
+        ensureSyncLogs(blocks);
+        syncBlocks = blocks;
+
+        if (blocks == 1) {
+            syncBlock(0, 0, count, false);
+        } else {
+            SyncTask task = new SyncTask(0, blocks, count);
+            // engines synced in parallel already run on the pool
+            if (ForkJoinTask.getPool() == pool) task.invoke();
+            else pool.invoke(task);
+        }
+    }
+
+    /**
+     * last part of a split tick start, on the ticking thread. applies the
+     * block logs in block order, then reads every body's spawn group and
+     * moves the counters of those that changed.
+     */
+    public void finishTickStart() {
+        if (!active) return;
+        for (int b = 0; b < syncBlocks; b++) {
+            applySyncLog(syncLogs[b]);
+        }
+        syncBlocks = 0;
+
+        for (int slot = 0, count = slotMap.activeCount(); slot < count; slot++) {
+            if (data.isTombstoned(slot)) continue;
+            B body = slotMap.getBody(slot);
+            if (body == null || !body.isBodyAlive()) continue;
+
+            int group = body.bodySpawnGroup();
+            int counted = data.getSpawnGroup(slot);
+            if (group == counted) continue;
+
+            double x = data.getPosX(slot);
+            double z = data.getPosZ(slot);
+            if (counted > 0) grid.removeGroupCount(x, z, counted);
+            if (group > 0) grid.addGroupCount(x, z, group);
+            data.setSpawnGroup(slot, (byte) group);
+        }
+    }
+
+    /**
+     * syncs slots from..to into SoA and logs what the grid has to hear about,
+     * touches nothing shared. without readGroups the log keeps each slot's
+     * counted group and only cell changes are logged.
+     */
+    private void syncBlock(int block, int from, int to, boolean readGroups) {
+        SyncLog log = syncLogs[block];
+        log.clear();
+
+        for (int slot = from; slot < to; slot++) {
+            B body = slotMap.getBody(slot);
+            if (body == null) continue;
+            if (!body.isBodyAlive()) {
+                log.add(slot, 0.0, 0.0, SyncLog.DEAD);
+                continue;
+            }
+
+            double oldX = data.getPosX(slot);
+            double oldZ = data.getPosZ(slot);
+
+            slotMap.syncBodyToSlot(body, slot);
+
+            int group = readGroups ? body.bodySpawnGroup() : data.getSpawnGroup(slot);
+            if (group != data.getSpawnGroup(slot)
+                    || SpatialGrid.toCellCoord(oldX) != SpatialGrid.toCellCoord(data.getPosX(slot))
+                    || SpatialGrid.toCellCoord(oldZ) != SpatialGrid.toCellCoord(data.getPosZ(slot))) {
+                log.add(slot, oldX, oldZ, group);
+            }
+        }
+    }
+
+    /**
+     * mid tick sync of the bodies of one merge kind: drains the staging
+     * queue, then syncs those slots to their bodies' current positions the
+     * same way tick start does. merge pairs are collected right after, so
+     * they see where items and orbs ended up this tick.
+     */
+    public void syncMergeKind(int kind) {
+        if (!active) return;
+
+        staging.flush(this);
+
+        ensureSyncLogs(1);
+        SyncLog log = syncLogs[0];
+        log.clear();
+
+        for (int slot = 0, count = slotMap.activeCount(); slot < count; slot++) {
+            if (data.getMergeKind(slot) != kind || data.isTombstoned(slot)) continue;
+            B body = slotMap.getBody(slot);
+            if (body == null) continue;
+            if (!body.isBodyAlive()) {
+                log.add(slot, 0.0, 0.0, SyncLog.DEAD);
+                continue;
+            }
+
+            double oldX = data.getPosX(slot);
+            double oldZ = data.getPosZ(slot);
+
+            slotMap.syncBodyToSlot(body, slot);
+
+            if (SpatialGrid.toCellCoord(oldX) != SpatialGrid.toCellCoord(data.getPosX(slot))
+                    || SpatialGrid.toCellCoord(oldZ) != SpatialGrid.toCellCoord(data.getPosZ(slot))) {
+                log.add(slot, oldX, oldZ, data.getSpawnGroup(slot));
+            }
+        }
+        applySyncLog(log);
+    }
+
+    /** applies one block's log on the ticking thread, in slot order */
+    private void applySyncLog(SyncLog log) {
+        int[] slots = log.slots.elements();
+        int[] groups = log.groups.elements();
+        double[] oldXs = log.oldX.elements();
+        double[] oldZs = log.oldZ.elements();
+
+        for (int i = 0, n = log.slots.size(); i < n; i++) {
+            int slot = slots[i];
+            int group = groups[i];
+
+            if (group == SyncLog.DEAD) {
+                // tombstoning moves nothing so later entries stay valid
+                B body = slotMap.getBody(slot);
+                if (deferredRemoval) {
+                    release(body);
+                } else {
+                    // the slot waits for the next flush, its spawn count leaves now
+                    uncount(slot);
+                    staging.enqueueRemove(body);
+                }
+                continue;
+            }
+
+            double oldX = oldXs[i];
+            double oldZ = oldZs[i];
+            double newX = data.getPosX(slot);
+            double newZ = data.getPosZ(slot);
+
+            if (!data.isOversized(slot)) {
+                grid.update(slot, oldX, oldZ, newX, newZ);
+                byte flags = data.getFlags(slot);
+                for (FlaggedIndex index : flaggedIndexes) {
+                    if (index.matches(flags)) index.grid.update(slot, oldX, oldZ, newX, newZ);
+                }
+            }
+
+            int counted = data.getSpawnGroup(slot);
+            if (group != counted) {
+                if (counted > 0) grid.removeGroupCount(oldX, oldZ, counted);
+                if (group > 0) grid.addGroupCount(newX, newZ, group);
+                data.setSpawnGroup(slot, (byte) group);
+            } else if (group > 0) {
+                grid.moveGroupCount(oldX, oldZ, newX, newZ, group);
+            }
+        }
+    }
+
+    private void ensureSyncLogs(int blocks) {
+        if (syncLogs.length >= blocks) return;
+        int old = syncLogs.length;
+        syncLogs = Arrays.copyOf(syncLogs, Math.max(blocks, old * 2));
+        for (int i = old; i < syncLogs.length; i++) syncLogs[i] = new SyncLog();
+    }
+
+    /** slots of one sync block that died or changed cell or spawn group */
+    private static final class SyncLog {
+
+        /** group value of a slot whose body is no longer alive */
+        static final int DEAD = -1;
+
+        final IntArrayList slots = new IntArrayList();
+        final IntArrayList groups = new IntArrayList();
+        final DoubleArrayList oldX = new DoubleArrayList();
+        final DoubleArrayList oldZ = new DoubleArrayList();
+
+        void add(int slot, double x, double z, int group) {
+            slots.add(slot);
+            groups.add(group);
+            oldX.add(x);
+            oldZ.add(z);
+        }
+
+        void clear() {
+            slots.clear();
+            groups.clear();
+            oldX.clear();
+            oldZ.clear();
+        }
+    }
+
+    /** splits a block range down to single blocks */
+    private final class SyncTask extends RecursiveAction {
+
+        private final int from, to, slotCount;
+
+        SyncTask(int from, int to, int slotCount) {
+            this.from = from;
+            this.to = to;
+            this.slotCount = slotCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int b = from; b < to; b++) {
+                    syncBlock(b, b * SYNC_BLOCK, Math.min(slotCount, (b + 1) * SYNC_BLOCK), false);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SyncTask(from, mid, slotCount), new SyncTask(mid, to, slotCount));
+        }
+    }
+
+    /**
+     * called at end of each tick. closes every slot tombstoned during the tick
+     * in one pass: grid cells filtered once each, SoA compacted once.
+     */
+    public void tickEnd() {
+        if (!active) return;
+        closeHoles();
+    }
+
+    /** thread safe, enqueues body to be added on next tick */
+    public void track(B body) {
+        staging.enqueueAdd(body);
+    }
+
+    /** thread safe, enqueues body to be removed on next tick */
+    public void untrack(B body) {
+        staging.enqueueRemove(body);
+    }
+
+    /** directly tracks body, called from staging queue flush */
+    public void trackDirect(B body) {
+        if (!active) return;
+        if (slotMap.isTracked(body)) return;
+
+        int slot = slotMap.allocate(body);
+        if (slot < 0) return;
+
+        data.setFlags(slot, classify(body));
+        data.setActivationGroup(slot, (byte) body.bodyActivationGroup());
+        data.setSpawnGroup(slot, (byte) body.bodySpawnGroup());
+        data.setMergeKind(slot, (byte) body.bodyMergeKind());
+        indexInsert(slot, body.bodyX(), body.bodyZ());
+    }
+
+    /** directly untracks body, called from staging queue flush */
+    public void untrackDirect(B body) {
+        if (!active) return;
+        if (deferredRemoval) {
+            release(body);
+            return;
+        }
+        int slot = slotMap.getSlot(body);
+        if (slot < 0) return;
+
+        indexRemove(slot, data.getPosX(slot), data.getPosZ(slot));
+
+        int lastSlot = slotMap.activeCount() - 1;
+        if (slot != lastSlot && lastSlot >= 0 && slotMap.getBody(lastSlot) != null) {
+            double movedX = data.getPosX(lastSlot);
+            double movedZ = data.getPosZ(lastSlot);
+
+            indexRemove(lastSlot, movedX, movedZ);
+
+            // free copies the last slot, flags included, into slot
+            slotMap.free(body);
+
+            indexInsert(slot, movedX, movedZ);
+            return;
+        }
+
+        slotMap.free(body);
+    }
+
+    /**
+     * tracks a run of bodies in one pass, called from staging queue flush.
+     * grid inserts are grouped so a freshly loaded chunk touches its cell once.
+     */
+    public void trackAllDirect(List<B> bodies) {
+        if (!active) return;
+        bulkScratch.clear();
+        for (FlaggedIndex index : flaggedIndexes) index.beginBulk();
+
+        for (int i = 0, n = bodies.size(); i < n; i++) {
+            B body = bodies.get(i);
+            int slot = slotMap.allocate(body);
+            if (slot < 0) continue;
+
+            byte flags = classify(body);
+            data.setFlags(slot, flags);
+            data.setActivationGroup(slot, (byte) body.bodyActivationGroup());
+            int group = body.bodySpawnGroup();
+            data.setSpawnGroup(slot, (byte) group);
+            data.setMergeKind(slot, (byte) body.bodyMergeKind());
+            if (group > 0) grid.addGroupCount(data.getPosX(slot), data.getPosZ(slot), group);
+            boolean wide = (flags & SoAEntityData.FLAG_OVERSIZED) != 0;
+            if (wide) {
+                oversized.add(slot);
+            } else {
+                bulkScratch.add(slot);
+            }
+            for (FlaggedIndex index : flaggedIndexes) {
+                if (index.matches(flags)) index.stageInsert(slot, wide);
+            }
+        }
+
+        grid.insertAll(bulkScratch, data);
+        for (FlaggedIndex index : flaggedIndexes) index.insertStaged(data);
+    }
+
+    /**
+     * untracks a run of bodies in one pass, called from staging queue flush.
+     * slots are released as holes, grid cells filtered once each (an unloaded
+     * chunk drops its whole cell), then SoA is compacted once. with deferred
+     * removal the holes wait for tickEnd instead.
+     */
+    public void untrackAllDirect(List<B> bodies) {
+        if (!active) return;
+
+        for (int i = 0, n = bodies.size(); i < n; i++) {
+            release(bodies.get(i));
+        }
+
+        if (!deferredRemoval) {
+            closeHoles();
+        }
+    }
+
+    /**
+     * drops all released holes from grid and oversized list, compacts SoA once
+     * and renames moved slots in a single pass per touched cell.
+     */
+    private void closeHoles() {
+        IntArrayList holes = slotMap.holes();
+        if (holes.isEmpty()) return;
+
+        bulkScratch.clear();
+        for (FlaggedIndex index : flaggedIndexes) index.beginBulk();
+        int[] h = holes.elements();
+        for (int i = 0, n = holes.size(); i < n; i++) {
+            int slot = h[i];
+            byte flags = data.getFlags(slot);
+            boolean wide = (flags & SoAEntityData.FLAG_OVERSIZED) != 0;
+            if (wide) {
+                oversized.remove(slot);
+            } else {
+                bulkScratch.add(slot);
+            }
+            for (FlaggedIndex index : flaggedIndexes) {
+                if (index.matches(flags)) index.stageRemove(slot, wide);
+            }
+        }
+
+        // holes still hold their old positions, so cells resolve correctly
+        grid.removeAll(bulkScratch, data);
+        for (FlaggedIndex index : flaggedIndexes) index.removeStaged(data);
+
+        movedFrom.clear();
+        movedTo.clear();
+        slotMap.compact(movedFrom, movedTo);
+        if (movedFrom.isEmpty()) return;
+
+        remapScratch.clear();
+        for (int i = 0, n = movedFrom.size(); i < n; i++) {
+            remapScratch.put(movedFrom.getInt(i), movedTo.getInt(i));
+        }
+        grid.relabelAll(remapScratch, movedTo, data);
+        oversized.relabelAll(remapScratch);
+
+        for (FlaggedIndex index : flaggedIndexes) {
+            index.relabel(remapScratch, movedTo, data);
+        }
+    }
+
+    /** tombstones body's slot, its spawn count leaves the grid right away */
+    private void release(B body) {
+        int slot = slotMap.release(body);
+        if (slot >= 0) uncount(slot);
+    }
+
+    /** drops slot from the spawn counts, later removal paths see group 0 and skip it */
+    private void uncount(int slot) {
+        int group = data.getSpawnGroup(slot);
+        if (group > 0) {
+            grid.removeGroupCount(data.getPosX(slot), data.getPosZ(slot), group);
+            data.setSpawnGroup(slot, (byte) 0);
+        }
+    }
+
+    /** index flags of a newly tracked body */
+    private static byte classify(PhysicsBody body) {
+        byte flags = 0;
+        if (OversizedEntityList.isOversized(body.bodyWidth())) flags |= SoAEntityData.FLAG_OVERSIZED;
+        if (body.isBodyHardCollider()) flags |= SoAEntityData.FLAG_HARD;
+        if (body.isBodyPlayer()) flags |= SoAEntityData.FLAG_PLAYER;
+        return flags;
+    }
+
+    /**
+     * adds slot to the grid or oversized list by its flags, and to matching
+     * flagged indexes. counted slots enter the grid's spawn counts too.
+     */
+    private void indexInsert(int slot, double x, double z) {
+        int group = data.getSpawnGroup(slot);
+        if (group > 0) grid.addGroupCount(x, z, group);
+        byte flags = data.getFlags(slot);
+        boolean wide = (flags & SoAEntityData.FLAG_OVERSIZED) != 0;
+        if (wide) {
+            oversized.add(slot);
+        } else {
+            grid.insert(slot, x, z);
+        }
+        for (FlaggedIndex index : flaggedIndexes) {
+            if (index.matches(flags)) index.insert(slot, wide, x, z);
+        }
+    }
+
+    private void indexRemove(int slot, double x, double z) {
+        int group = data.getSpawnGroup(slot);
+        if (group > 0) grid.removeGroupCount(x, z, group);
+        byte flags = data.getFlags(slot);
+        boolean wide = (flags & SoAEntityData.FLAG_OVERSIZED) != 0;
+        if (wide) {
+            oversized.remove(slot);
+        } else {
+            grid.remove(slot, x, z);
+        }
+        for (FlaggedIndex index : flaggedIndexes) {
+            if (index.matches(flags)) index.remove(slot, wide, x, z);
+        }
+    }
+
+    /**
+     * activation range pass, run after tickStart. every grouped slot starts
+     * out FLAG_INACTIVE, then each player from the player index wakes the
+     * slots of the grid cells its largest range reaches, when they are within
+     * the horizontal range of their group. cost follows the cells around
+     * players, not bodies times players. rangeSq is indexed by group, groups
+     * outside it stay active. returns the number of inactive slots.
+     */
+    public int classifyActivation(double[] rangeSq) {
+        if (!active) return 0;
+        int count = slotMap.activeCount();
+
+        int inactive = 0;
+        for (int slot = 0; slot < count; slot++) {
+            int group = data.getActivationGroup(slot);
+            byte flags = data.getFlags(slot);
+            if (group > 0 && group < rangeSq.length) {
+                data.setFlags(slot, (byte) (flags | SoAEntityData.FLAG_INACTIVE));
+                inactive++;
+            } else if ((flags & SoAEntityData.FLAG_INACTIVE) != 0) {
+                data.setFlags(slot, (byte) (flags & ~SoAEntityData.FLAG_INACTIVE));
+            }
+        }
+        if (inactive == 0) return 0;
+
+        double maxRangeSq = 0;
+        for (int g = 1; g < rangeSq.length; g++) maxRangeSq = Math.max(maxRangeSq, rangeSq[g]);
+        double reach = Math.sqrt(maxRangeSq);
+
+        int players = gatherPlayers(count);
+        for (int p = 0; p < players; p++) {
+            double px = playerX[p];
+            double pz = playerZ[p];
+            int minCellX = SpatialGrid.toCellCoord(px - reach);
+            int maxCellX = SpatialGrid.toCellCoord(px + reach);
+            int minCellZ = SpatialGrid.toCellCoord(pz - reach);
+            int maxCellZ = SpatialGrid.toCellCoord(pz + reach);
+            for (int cx = minCellX; cx <= maxCellX; cx++) {
+                for (int cz = minCellZ; cz <= maxCellZ; cz++) {
+                    IntArrayList cell = grid.getCell(cx, cz);
+                    if (cell == null) continue;
+                    int[] slots = cell.elements();
+                    for (int i = 0, n = cell.size(); i < n; i++) {
+                        if (wake(slots[i], px, pz, rangeSq)) inactive--;
+                    }
+                }
+            }
+        }
+
+        // oversized bodies live outside the grid cells, few enough to check against every player
+        bulkScratch.clear();
+        oversized.collectAll(bulkScratch);
+        int[] wide = bulkScratch.elements();
+        for (int i = 0, n = bulkScratch.size(); i < n; i++) {
+            for (int p = 0; p < players; p++) {
+                if (wake(wide[i], playerX[p], playerZ[p], rangeSq)) {
+                    inactive--;
+                    break;
+                }
+            }
+        }
+        return inactive;
+    }
+
+    /** player feet positions from the player index into playerX/playerZ, returns the count */
+    private int gatherPlayers(int count) {
+        bulkScratch.clear();
+        playerIndex.grid.collectAll(bulkScratch);
+        playerIndex.oversized.collectAll(bulkScratch);
+
+        int players = 0;
+        int[] slots = bulkScratch.elements();
+        for (int i = 0, n = bulkScratch.size(); i < n; i++) {
+            int slot = slots[i];
+            if (slot >= count || data.isTombstoned(slot)) continue;
+            if (players == playerX.length) {
+                playerX = Arrays.copyOf(playerX, players * 2);
+                playerZ = Arrays.copyOf(playerZ, players * 2);
+            }
+            playerX[players] = data.getPosX(slot);
+            playerZ[players] = data.getPosZ(slot);
+            players++;
+        }
+        return players;
+    }
+
+    /** clears FLAG_INACTIVE when the player is within the slot's group range, true if it did */
+    private boolean wake(int slot, double px, double pz, double[] rangeSq) {
+        byte flags = data.getFlags(slot);
+        if ((flags & SoAEntityData.FLAG_INACTIVE) == 0) return false;
+        double dx = px - data.getPosX(slot);
+        double dz = pz - data.getPosZ(slot);
+        if (dx * dx + dz * dz > rangeSq[data.getActivationGroup(slot)]) return false;
+        data.setFlags(slot, (byte) (flags & ~SoAEntityData.FLAG_INACTIVE));
+        return true;
+    }
+
+    /** counted bodies of a spawn group in the chunk aligned cell */
+    public int spawnCount(int cellX, int cellZ, int group) {
+        return grid.groupCount(cellX, cellZ, group);
+    }
+
+    /** counted bodies of a spawn group in the whole world */
+    public int spawnTotal(int group) {
+        return grid.groupTotal(group);
+    }
+
+    /** visits every cell holding counted bodies, see {@link SpatialGrid#forEachGroupCell} */
+    public void forEachSpawnCell(SpatialGrid.GroupCellVisitor visitor) {
+        grid.forEachGroupCell(visitor);
+    }
+
+    /** visits tracked bodies currently counted under a spawn group, one flat pass */
+    public void forEachSpawnCounted(Consumer<? super B> visitor) {
+        for (int slot = 0, n = slotMap.activeCount(); slot < n; slot++) {
+            if (data.getSpawnGroup(slot) == 0) continue;
+            B body = slotMap.getBody(slot);
+            if (body != null) visitor.accept(body);
+        }
+    }
+
+    /**
+     * appends pairs of slots, initiator then other, for every tracked body of
+     * the given merge kind whose box overlaps the initiator's box grown by
+     * expandXZ and expandY. initiators are body ids, untracked ones are
+     * skipped. see {@link BodyQuery#collectMergePairs}.
+     */
+    public void collectMergePairs(IntArrayList initiatorIds, int kind,
+                                  double expandXZ, double expandY, IntArrayList out) {
+        bulkScratch.clear();
+        int[] ids = initiatorIds.elements();
+        for (int i = 0, n = initiatorIds.size(); i < n; i++) {
+            int slot = slotMap.getSlot(ids[i]);
+            if (slot >= 0 && !data.isTombstoned(slot) && data.getMergeKind(slot) == kind) {
+                bulkScratch.add(slot);
+            }
+        }
+        query.collectMergePairs(bulkScratch, kind, expandXZ, expandY, out);
+    }
+
+    /** true if body is tracked and was marked inactive by the last activation pass */
+    public boolean isInactive(B body) {
+        int slot = slotMap.getSlot(body);
+        return slot >= 0 && data.isInactive(slot);
+    }
+
+    /** appends slots whose box overlaps the given box to out */
+    public void collectOverlapping(double minX, double minY, double minZ,
+                                   double maxX, double maxY, double maxZ,
+                                   IntArrayList out) {
+        query.collectOverlapping(minX, minY, minZ, maxX, maxY, maxZ, out);
+    }
+
+    /** appends slots overlapping the box with feet position within radius of center */
+    public void collectWithinRadius(double minX, double minY, double minZ,
+                                    double maxX, double maxY, double maxZ,
+                                    double centerX, double centerY, double centerZ,
+                                    double radius, IntArrayList out) {
+        query.collectWithinRadius(minX, minY, minZ, maxX, maxY, maxZ,
+                centerX, centerY, centerZ, radius, out);
+    }
+
+    /** appends slots with feet position within horizontal radius of center */
+    public void collectWithinHorizontalRadius(double centerX, double centerZ, double radius,
+                                              IntArrayList out) {
+        query.collectWithinHorizontalRadius(centerX, centerZ, radius, out);
+    }
+
+    /** visits bodies queued for tracking but not in the grid yet */
+    public void forEachPendingAdd(Consumer<? super B> visitor) {
+        staging.forEachPendingAdd(visitor);
+    }
+
+    /** appends player slots with feet position within radius of the point */
+    public void collectPlayersWithinRadius(double x, double y, double z, double radius,
+                                           IntArrayList out) {
+        query.collectPlayersWithinRadius(x, y, z, radius, out);
+    }
+
+    /** number of player bodies in the player index */
+    public int playerCount() {
+        return playerIndex.size();
+    }
+
+    /** appends hard collider slots whose box overlaps the given box to out */
+    public void collectHardOverlapping(double minX, double minY, double minZ,
+                                       double maxX, double maxY, double maxZ,
+                                       IntArrayList out) {
+        query.collectHardOverlapping(minX, minY, minZ, maxX, maxY, maxZ, out);
+    }
+
+    /** returns body at slot, null for holes */
+    @Nullable
+    public B getBody(int slot) {
+        return slotMap.getBody(slot);
+    }
+
+    public SoAEntityData data() {
+        return data;
+    }
+
+    public int trackedCount() {
+        return slotMap.activeCount();
+    }
+
+    public int gridCellCount() {
+        return grid.cellCount();
+    }
+
+    public int oversizedCount() {
+        return oversized.size();
+    }
+
+    public int hardColliderCellCount() {
+        return hardIndex.grid.cellCount();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /** deactivates core and releases all buffers */
+    public void shutdown() {
+        active = false;
+        staging.clear();
+        slotMap.clear();
+        grid.clear();
+        oversized.clear();
+        for (FlaggedIndex index : flaggedIndexes) index.clear();
+        data.free();
+    }
+}
@@ -1,4 +1,4 @@
-package com.dripps.flatcollision.engine;
+package com.dripps.flatcollision.core;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -13,6 +13,21 @@ public final class SoAEntityData {
     private static final int DOUBLE_BYTES = Double.BYTES;
     private static final int INITIAL_CAPACITY = 1024;
 
+    /** slot was released and waits for compaction, queries skip it */
+    public static final byte FLAG_TOMBSTONE = 1;
+
+    /** slot lives in the oversized list instead of the grid */
+    public static final byte FLAG_OVERSIZED = 1 << 1;
+
+    /** slot is also in the hard collider grid or oversized list */
+    public static final byte FLAG_HARD = 1 << 2;
+
+    /** slot is also in the player grid */
+    public static final byte FLAG_PLAYER = 1 << 3;
+
+    /** slot was out of activation range of every player at the last pass */
+    public static final byte FLAG_INACTIVE = 1 << 4;
+
     private int capacity;
     private int size;
 
@@ -27,6 +42,18 @@ public final class SoAEntityData {
     private ByteBuffer halfWidth;
     private ByteBuffer height;
 
+    /** one byte of FLAG_* bits per slot */
+    private ByteBuffer flags;
+
+    /** activation range group per slot, 0 is never throttled */
+    private ByteBuffer activationGroup;
+
+    /** spawn group the slot is counted under in the grid, 0 when not counted */
+    private ByteBuffer spawnGroup;
+
+    /** merge kind per slot, 0 never merges */
+    private ByteBuffer mergeKind;
+
     public SoAEntityData() {
         this(INITIAL_CAPACITY);
     }
@@ -86,6 +113,31 @@ public final class SoAEntityData {
         height.putDouble(slot * DOUBLE_BYTES, h);
     }
 
+    public byte getFlags(int slot) { return flags.get(slot); }
+    public void setFlags(int slot, byte f) { flags.put(slot, f); }
+
+    public boolean isTombstoned(int slot) { return (flags.get(slot) & FLAG_TOMBSTONE) != 0; }
+    public boolean isOversized(int slot)  { return (flags.get(slot) & FLAG_OVERSIZED) != 0; }
+    public boolean isHard(int slot)       { return (flags.get(slot) & FLAG_HARD) != 0; }
+    public boolean isInactive(int slot)   { return (flags.get(slot) & FLAG_INACTIVE) != 0; }
+
+    public byte getActivationGroup(int slot) { return activationGroup.get(slot); }
+    public void setActivationGroup(int slot, byte group) { activationGroup.put(slot, group); }
+
+    public byte getSpawnGroup(int slot) { return spawnGroup.get(slot); }
+    public void setSpawnGroup(int slot, byte group) { spawnGroup.put(slot, group); }
+
+    public byte getMergeKind(int slot) { return mergeKind.get(slot); }
+    public void setMergeKind(int slot, byte kind) { mergeKind.put(slot, kind); }
+
+    public void addFlags(int slot, byte f) {
+        flags.put(slot, (byte) (flags.get(slot) | f));
+    }
+
+    public void markTombstone(int slot) {
+        flags.put(slot, (byte) (flags.get(slot) | FLAG_TOMBSTONE));
+    }
+
     public double getMinX(int slot) { return getPosX(slot) - getHalfWidth(slot); }
     public double getMaxX(int slot) { return getPosX(slot) + getHalfWidth(slot); }
     public double getMinY(int slot) { return getPosY(slot); }
@@ -124,6 +176,11 @@ public final class SoAEntityData {
 
         halfWidth.putDouble(dstOff, halfWidth.getDouble(srcOff));
         height.putDouble(dstOff, height.getDouble(srcOff));
+
+        flags.put(dst, flags.get(src));
+        activationGroup.put(dst, activationGroup.get(src));
+        spawnGroup.put(dst, spawnGroup.get(src));
+        mergeKind.put(dst, mergeKind.get(src));
     }
 
     private static ByteBuffer alloc(int slots) {
@@ -131,6 +188,10 @@ public final class SoAEntityData {
                          .order(ByteOrder.nativeOrder());
     }
 
+    private static ByteBuffer allocBytes(int slots) {
+        return ByteBuffer.allocateDirect(slots).order(ByteOrder.nativeOrder());
+    }
+
     private void allocateBuffers(int cap) {
         posX      = alloc(cap);
         posY      = alloc(cap);
@@ -140,6 +201,10 @@ public final class SoAEntityData {
         velZ      = alloc(cap);
         halfWidth = alloc(cap);
         height    = alloc(cap);
+        flags     = allocBytes(cap);
+        activationGroup = allocBytes(cap);
+        spawnGroup = allocBytes(cap);
+        mergeKind = allocBytes(cap);
     }
 
     private void grow(int newCap) {
@@ -151,11 +216,18 @@ public final class SoAEntityData {
         velZ      = copyGrow(velZ, newCap);
         halfWidth = copyGrow(halfWidth, newCap);
         height    = copyGrow(height, newCap);
+        flags     = copyGrow(flags, allocBytes(newCap));
+        activationGroup = copyGrow(activationGroup, allocBytes(newCap));
+        spawnGroup = copyGrow(spawnGroup, allocBytes(newCap));
+        mergeKind = copyGrow(mergeKind, allocBytes(newCap));
         capacity  = newCap;
     }
 
     private static ByteBuffer copyGrow(ByteBuffer old, int newSlots) {
-        ByteBuffer buf = alloc(newSlots);
+        return copyGrow(old, alloc(newSlots));
+    }
+
+    private static ByteBuffer copyGrow(ByteBuffer old, ByteBuffer buf) {
         old.rewind();
         buf.put(old);
         buf.rewind();
@@ -167,6 +239,7 @@ public final class SoAEntityData {
         posX = posY = posZ = null;
         velX = velY = velZ = null;
         halfWidth = height = null;
+        flags = activationGroup = spawnGroup = mergeKind = null;
         size = 0;
         capacity = 0;
     }
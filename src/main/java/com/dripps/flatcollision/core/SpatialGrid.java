@@ -0,0 +1,278 @@
+package com.dripps.flatcollision.core;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Arrays;
+
+/**
+ * flat spatial grid for entity collision lookups. entities assigned to single
+ * home cell based on center point. collision queries check home cell and 8
+ * neighbors. cell size is 16 blocks, chunk aligned. the grid also keeps live
+ * body counts per cell and spawn group, maintained by the owner on track,
+ * untrack and cell migration, so per chunk mob counts need no entity scan.
+ */
+public final class SpatialGrid {
+
+    /** cell size in blocks, chunk aligned */
+    public static final int CELL_SIZE = 16;
+
+    /**
+     * spawn groups counted per cell, groups run 1..SPAWN_GROUPS, 0 is never
+     * counted. the game layer keeps bodies that are no mob in the upper half.
+     */
+    public static final int SPAWN_GROUPS = 16;
+
+    /** map from packed cell key to list of slot IDs */
+    private final Long2ObjectOpenHashMap<IntArrayList> cells = new Long2ObjectOpenHashMap<>();
+
+    /** scratch grouping for bulk removal, reused across calls */
+    private final Long2ObjectOpenHashMap<IntOpenHashSet> removeGroups = new Long2ObjectOpenHashMap<>();
+
+    /** scratch set of cells touched by relabel, reused across calls */
+    private final LongOpenHashSet relabelKeys = new LongOpenHashSet();
+
+    /** per cell body count of each spawn group, index group - 1, cells drop out at zero */
+    private final Long2ObjectOpenHashMap<int[]> groupCounts = new Long2ObjectOpenHashMap<>();
+    private final int[] groupTotals = new int[SPAWN_GROUPS];
+
+    /** converts world coordinate to cell coordinate */
+    public static int toCellCoord(double worldCoord) {
+        return Math.floorDiv((int) Math.floor(worldCoord), CELL_SIZE);
+    }
+
+    /** packs two cell coordinates into long key */
+    public static long packKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /** inserts slot into cell at world position, returns packed key */
+    public long insert(int slot, double worldX, double worldZ) {
+        int cx = toCellCoord(worldX);
+        int cz = toCellCoord(worldZ);
+        long key = packKey(cx, cz);
+        cells.computeIfAbsent(key, k -> new IntArrayList()).add(slot);
+        return key;
+    }
+
+    /** removes slot from cell at world position */
+    public void remove(int slot, double worldX, double worldZ) {
+        int cx = toCellCoord(worldX);
+        int cz = toCellCoord(worldZ);
+        long key = packKey(cx, cz);
+        IntArrayList list = cells.get(key);
+        if (list != null) {
+            list.rem(slot); // IntArrayList.rem removes by value
+            if (list.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * inserts a run of slots using their SoA positions. consecutive slots in the
+     * same cell (chunk loads arrive grouped) share one map lookup.
+     */
+    public void insertAll(IntArrayList slots, SoAEntityData data) {
+        int[] s = slots.elements();
+        long lastKey = 0;
+        IntArrayList last = null;
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            int slot = s[i];
+            long key = packKey(toCellCoord(data.getPosX(slot)), toCellCoord(data.getPosZ(slot)));
+            if (last == null || key != lastKey) {
+                last = cells.computeIfAbsent(key, k -> new IntArrayList());
+                lastKey = key;
+            }
+            last.add(slot);
+        }
+    }
+
+    /**
+     * removes many slots at once, grouped by home cell from their SoA positions.
+     * each touched cell is filtered once and dropped whole when emptied.
+     */
+    public void removeAll(IntArrayList slots, SoAEntityData data) {
+        Long2ObjectOpenHashMap<IntOpenHashSet> groups = removeGroups;
+        groups.clear();
+        int[] s = slots.elements();
+        for (int i = 0, n = slots.size(); i < n; i++) {
+            int slot = s[i];
+            long key = packKey(toCellCoord(data.getPosX(slot)), toCellCoord(data.getPosZ(slot)));
+            groups.computeIfAbsent(key, k -> new IntOpenHashSet()).add(slot);
+        }
+
+        for (var entry : groups.long2ObjectEntrySet()) {
+            long key = entry.getLongKey();
+            IntArrayList list = cells.get(key);
+            if (list == null) continue;
+
+            IntOpenHashSet group = entry.getValue();
+            list.removeIf((int slot) -> group.contains(slot));
+            if (list.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+        groups.clear();
+    }
+
+    /**
+     * renames slots moved by compaction. remap is old slot to new slot, moved
+     * lists the new slots so each touched cell is rewritten once.
+     */
+    public void relabelAll(Int2IntOpenHashMap remap, IntArrayList moved, SoAEntityData data) {
+        LongOpenHashSet touched = relabelKeys;
+        touched.clear();
+        int[] m = moved.elements();
+        for (int i = 0, n = moved.size(); i < n; i++) {
+            int slot = m[i];
+            touched.add(packKey(toCellCoord(data.getPosX(slot)), toCellCoord(data.getPosZ(slot))));
+        }
+
+        LongIterator it = touched.iterator();
+        while (it.hasNext()) {
+            IntArrayList list = cells.get(it.nextLong());
+            if (list == null) continue;
+            int[] e = list.elements();
+            for (int i = 0, n = list.size(); i < n; i++) {
+                int renamed = remap.get(e[i]);
+                if (renamed >= 0) e[i] = renamed;
+            }
+        }
+    }
+
+    /** removes from old cell and inserts into new, only if cell changed */
+    public long update(int slot, double oldX, double oldZ, double newX, double newZ) {
+        int oldCx = toCellCoord(oldX);
+        int oldCz = toCellCoord(oldZ);
+        int newCx = toCellCoord(newX);
+        int newCz = toCellCoord(newZ);
+
+        if (oldCx == newCx && oldCz == newCz) {
+            return packKey(newCx, newCz);
+        }
+
+        // Remove from old cell
+        long oldKey = packKey(oldCx, oldCz);
+        IntArrayList oldList = cells.get(oldKey);
+        if (oldList != null) {
+            oldList.rem(slot);
+            if (oldList.isEmpty()) cells.remove(oldKey);
+        }
+
+        long newKey = packKey(newCx, newCz);
+        cells.computeIfAbsent(newKey, k -> new IntArrayList()).add(slot);
+        return newKey;
+    }
+
+    /** returns slot list for cell or null if empty */
+    public IntArrayList getCell(int cellX, int cellZ) {
+        return cells.get(packKey(cellX, cellZ));
+    }
+
+    /** appends the slots of every cell */
+    public void collectAll(IntArrayList out) {
+        for (IntArrayList list : cells.values()) {
+            out.addAll(list);
+        }
+    }
+
+    /** collects all slots from 3x3 neighborhood into output list */
+    public void collectNeighborSlots(int centerCellX, int centerCellZ, IntArrayList out) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                IntArrayList list = cells.get(packKey(centerCellX + dx, centerCellZ + dz));
+                if (list != null) {
+                    out.addAll(list);
+                }
+            }
+        }
+    }
+
+    /** collects slots from all cells overlapping AABB */
+    public void collectSlotsInBox(double minX, double minZ, double maxX, double maxZ,
+                                  IntArrayList out) {
+        int cellMinX = toCellCoord(minX) - 1;
+        int cellMaxX = toCellCoord(maxX) + 1;
+        int cellMinZ = toCellCoord(minZ) - 1;
+        int cellMaxZ = toCellCoord(maxZ) + 1;
+
+        for (int cx = cellMinX; cx <= cellMaxX; cx++) {
+            for (int cz = cellMinZ; cz <= cellMaxZ; cz++) {
+                IntArrayList list = cells.get(packKey(cx, cz));
+                if (list != null) {
+                    out.addAll(list);
+                }
+            }
+        }
+    }
+
+    /** counts a body of group at world position */
+    public void addGroupCount(double worldX, double worldZ, int group) {
+        long key = packKey(toCellCoord(worldX), toCellCoord(worldZ));
+        groupCounts.computeIfAbsent(key, k -> new int[SPAWN_GROUPS])[group - 1]++;
+        groupTotals[group - 1]++;
+    }
+
+    public void removeGroupCount(double worldX, double worldZ, int group) {
+        long key = packKey(toCellCoord(worldX), toCellCoord(worldZ));
+        int[] counts = groupCounts.get(key);
+        if (counts == null || counts[group - 1] == 0) return;
+        counts[group - 1]--;
+        groupTotals[group - 1]--;
+        if (isZero(counts)) groupCounts.remove(key);
+    }
+
+    /** moves a counted body between cells, only if cell changed */
+    public void moveGroupCount(double oldX, double oldZ, double newX, double newZ, int group) {
+        if (toCellCoord(oldX) == toCellCoord(newX) && toCellCoord(oldZ) == toCellCoord(newZ)) return;
+        removeGroupCount(oldX, oldZ, group);
+        addGroupCount(newX, newZ, group);
+    }
+
+    /** counted bodies of group in one cell */
+    public int groupCount(int cellX, int cellZ, int group) {
+        int[] counts = groupCounts.get(packKey(cellX, cellZ));
+        return counts != null ? counts[group - 1] : 0;
+    }
+
+    /** counted bodies of group over all cells */
+    public int groupTotal(int group) {
+        return groupTotals[group - 1];
+    }
+
+    /** visits every cell holding counted bodies, counts are indexed group - 1, read only */
+    public void forEachGroupCell(GroupCellVisitor visitor) {
+        for (var entry : groupCounts.long2ObjectEntrySet()) {
+            long key = entry.getLongKey();
+            visitor.accept((int) (key >> 32), (int) key, entry.getValue());
+        }
+    }
+
+    @FunctionalInterface
+    public interface GroupCellVisitor {
+        void accept(int cellX, int cellZ, int[] counts);
+    }
+
+    private static boolean isZero(int[] counts) {
+        for (int c : counts) {
+            if (c != 0) return false;
+        }
+        return true;
+    }
+
+    /** removes all entries */
+    public void clear() {
+        cells.clear();
+        groupCounts.clear();
+        Arrays.fill(groupTotals, 0);
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+}
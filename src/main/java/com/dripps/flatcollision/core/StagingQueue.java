@@ -0,0 +1,96 @@
+package com.dripps.flatcollision.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * thread safe staging queue for bodies from async chunk loaders. async workers
+ * push requests into lock free queue, main thread drains at tick start and bulk
+ * inserts into SoA buffers. consecutive requests of the same type are applied
+ * as one run so chunk loads and unloads hit the bulk paths.
+ */
+public final class StagingQueue<B extends PhysicsBody> {
+
+    /** lightweight record for pending body registration */
+    public record BodyRequest<B>(B body, RequestType type) {}
+
+    public enum RequestType {
+        ADD,
+        REMOVE
+    }
+
+    /** lock free queue, multiple threads enqueue, main thread dequeues */
+    private final ConcurrentLinkedQueue<BodyRequest<B>> pending = new ConcurrentLinkedQueue<>();
+
+    /** runs shorter than this go through the single body paths */
+    private static final int BULK_THRESHOLD = 8;
+
+    /** current run of same type requests, main thread only */
+    private final List<B> run = new ArrayList<>();
+
+    /** enqueues body to be added on next tick */
+    public void enqueueAdd(B body) {
+        pending.add(new BodyRequest<>(body, RequestType.ADD));
+    }
+
+    /** enqueues body to be removed on next tick */
+    public void enqueueRemove(B body) {
+        pending.add(new BodyRequest<>(body, RequestType.REMOVE));
+    }
+
+    /** drains all pending requests and applies to physics core in order */
+    public int flush(PhysicsCore<B> core) {
+        int count = 0;
+        RequestType runType = null;
+        BodyRequest<B> req;
+        while ((req = pending.poll()) != null) {
+            if (req.type() != runType) {
+                applyRun(core, runType);
+                runType = req.type();
+            }
+            run.add(req.body());
+            count++;
+        }
+        applyRun(core, runType);
+        return count;
+    }
+
+    private void applyRun(PhysicsCore<B> core, RequestType type) {
+        if (run.isEmpty()) return;
+
+        if (run.size() >= BULK_THRESHOLD) {
+            switch (type) {
+                case ADD    -> core.trackAllDirect(run);
+                case REMOVE -> core.untrackAllDirect(run);
+            }
+        } else {
+            for (B body : run) {
+                switch (type) {
+                    case ADD    -> core.trackDirect(body);
+                    case REMOVE -> core.untrackDirect(body);
+                }
+            }
+        }
+        run.clear();
+    }
+
+    /** visits bodies waiting to be added, weakly consistent with concurrent enqueues */
+    public void forEachPendingAdd(Consumer<? super B> visitor) {
+        for (BodyRequest<B> req : pending) {
+            if (req.type() == RequestType.ADD) visitor.accept(req.body());
+        }
+    }
+
+    /** returns true if pending requests exist */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /** discards all pending requests */
+    public void clear() {
+        pending.clear();
+        run.clear();
+    }
+}
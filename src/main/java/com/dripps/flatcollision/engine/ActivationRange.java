@@ -0,0 +1,78 @@
+package com.dripps.flatcollision.engine;
+
+import com.dripps.flatcollision.FlatcollisionConfig;
+import com.dripps.flatcollision.core.PhysicsCore;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.mob.MobEntity;
+
+/**
+ * activation range tick throttling. mobs far from every player skip their
+ * entity tick, all but age and last position, and only wake up every few
+ * ticks, like paper's activation range. the distance classification runs in
+ * the core over the grid cells around each player, exemptions are checked on
+ * the live entity only for mobs the pass marked inactive. projectiles, items
+ * and every other non mob entity are never grouped, so they always tick.
+ */
+public final class ActivationRange {
+
+    /** never throttled */
+    public static final int GROUP_NONE = 0;
+    public static final int GROUP_MONSTER = 1;
+    public static final int GROUP_ANIMAL = 2;
+
+    /** mobs of the misc spawn group, villagers and golems */
+    public static final int GROUP_MISC = 3;
+
+    private final PhysicsCore<Entity> core;
+
+    /** squared horizontal range per group, group 0 unused */
+    private final double[] rangeSq = new double[4];
+
+    private int inactiveCount;
+    private long tick;
+
+    ActivationRange(PhysicsCore<Entity> core) {
+        this.core = core;
+        rangeSq[GROUP_MONSTER] = square(FlatcollisionConfig.activationMonsterRange);
+        rangeSq[GROUP_ANIMAL] = square(FlatcollisionConfig.activationAnimalRange);
+        rangeSq[GROUP_MISC] = square(FlatcollisionConfig.activationMiscRange);
+    }
+
+    /** activation group of an entity, read once when it is tracked */
+    public static int groupOf(Entity entity) {
+        if (!(entity instanceof MobEntity)) return GROUP_NONE;
+        return switch (entity.getType().getSpawnGroup()) {
+            case MONSTER -> GROUP_MONSTER;
+            case MISC -> GROUP_MISC;
+            default -> GROUP_ANIMAL;
+        };
+    }
+
+    /** reclassifies all slots, called after the engine synced positions */
+    void update(long worldTick) {
+        tick = worldTick;
+        inactiveCount = core.classifyActivation(rangeSq);
+    }
+
+    /**
+     * true if the entity should skip this tick. inactive mobs still tick once
+     * every wake interval, staggered by id, and mobs that are riding, ridden,
+     * leashed, recently hurt or chasing a target always tick.
+     */
+    public boolean shouldSkip(Entity entity) {
+        if (!core.isInactive(entity)) return false;
+        if ((tick + entity.getId()) % FlatcollisionConfig.activationWakeInterval == 0) return false;
+        if (entity.hasVehicle() || entity.hasPassengers()) return false;
+        if (entity instanceof LivingEntity living && living.hurtTime > 0) return false;
+        return !(entity instanceof MobEntity mob) || (mob.getTarget() == null && !mob.isLeashed());
+    }
+
+    public int inactiveCount() {
+        return inactiveCount;
+    }
+
+    private static double square(int range) {
+        return (double) range * range;
+    }
+}
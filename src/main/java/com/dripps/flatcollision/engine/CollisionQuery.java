@@ -1,37 +1,57 @@
 package com.dripps.flatcollision.engine;
 
+import com.dripps.flatcollision.core.PhysicsCore;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.predicate.entity.EntityPredicates;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.shape.VoxelShape;
 import net.minecraft.util.shape.VoxelShapes;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Predicate;
 
 /**
- * collision query combining spatial grid and oversized entity list.
- * collects candidate slots from grid cells, performs fast AABB overlap tests
- * on SoA data, then fetches entities for final predicate checks.
+ * minecraft side of collision queries. the core collects slots overlapping
+ * the box from grid cells and oversized list using SoA data only, then
+ * entities are fetched for the surviving slots for final predicate checks.
+ * collision shapes only look at the hard collider index and are cached per
+ * slot, player proximity only at the player index.
  */
 public final class CollisionQuery {
 
-    private final SoAEntityData data;
-    private final EntitySlotMap slotMap;
-    private final SpatialGrid grid;
-    private final OversizedEntityList oversized;
+    private final PhysicsCore<Entity> core;
 
-    /** scratch list to avoid per query allocation */
-    private final IntArrayList candidateScratch = new IntArrayList(256);
+    /** scratch list of overlapping slots to avoid per query allocation */
+    private final IntArrayList hitScratch = new IntArrayList(64);
 
-    public CollisionQuery(SoAEntityData data, EntitySlotMap slotMap,
-                          SpatialGrid grid, OversizedEntityList oversized) {
-        this.data = data;
-        this.slotMap = slotMap;
-        this.grid = grid;
-        this.oversized = oversized;
+    /**
+     * extra radius for explosion culling. SoA positions are synced at tick
+     * start and entities move during the tick, vanilla redoes the exact
+     * distance check on what we return.
+     */
+    private static final double EXPLOSION_SLACK = 2.0;
+
+    /**
+     * extra radius for player queries. covers players teleported or moved by
+     * the tick after the SoA sync, the exact check runs on the live entity.
+     */
+    private static final double PLAYER_SLACK = 8.0;
+
+    /**
+     * per slot collision shape and the bounding box it was built from. shapes
+     * only depend on the box, so an equal box means the shape is current even
+     * when the slot now holds another entity or it moved mid tick.
+     */
+    private Box[] shapeBoxes = new Box[64];
+    private VoxelShape[] shapes = new VoxelShape[64];
+
+    public CollisionQuery(PhysicsCore<Entity> core) {
+        this.core = core;
     }
 
     /**
@@ -41,27 +61,16 @@ public final class CollisionQuery {
     public List<Entity> getEntitiesInBox(@Nullable Entity except, Box box,
                                          Predicate<? super Entity> predicate) {
         List<Entity> result = new ArrayList<>();
-        collectCandidates(box);
+        collectHits(box);
 
         int exceptId = except != null ? except.getId() : Integer.MIN_VALUE;
 
-        double bMinX = box.minX, bMinY = box.minY, bMinZ = box.minZ;
-        double bMaxX = box.maxX, bMaxY = box.maxY, bMaxZ = box.maxZ;
-
-        int[] slots = candidateScratch.elements();
-        int count = candidateScratch.size();
+        int[] slots = hitScratch.elements();
+        int count = hitScratch.size();
 
         for (int i = 0; i < count; i++) {
-            int slot = slots[i];
-            if (slot < 0 || slot >= slotMap.activeCount()) continue;
-
-            // fast AABB overlap from SoA
-            if (!data.overlapsBox(slot, bMinX, bMinY, bMinZ, bMaxX, bMaxY, bMaxZ)) {
-                continue;
-            }
-
             // passed linear test, fetch entity for predicate checks
-            Entity e = slotMap.getEntity(slot);
+            Entity e = core.getBody(slots[i]);
             if (e == null || e.getId() == exceptId) continue;
             if (!predicate.test(e)) continue;
 
@@ -72,48 +81,142 @@ public final class CollisionQuery {
     }
 
     /**
-     * returns collision shapes for collidable entities overlapping box.
-     * replacement for vanilla getEntityCollisions.
+     * returns non spectator entities in box that can be within radius of the
+     * explosion center. replacement for the getOtherEntities call in
+     * explosion damage, far corners of the box are culled before any entity
+     * is touched.
      */
-    public List<VoxelShape> getEntityCollisionShapes(@Nullable Entity querier, Box box) {
-        List<VoxelShape> shapes = new ArrayList<>();
-        collectCandidates(box);
+    public List<Entity> getExplosionTargets(@Nullable Entity except, Box box,
+                                            double centerX, double centerY, double centerZ,
+                                            double radius) {
+        List<Entity> result = new ArrayList<>();
+        hitScratch.clear();
+        core.collectWithinRadius(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ,
+                centerX, centerY, centerZ, radius + EXPLOSION_SLACK, hitScratch);
 
-        int querierId = querier != null ? querier.getId() : Integer.MIN_VALUE;
+        int exceptId = except != null ? except.getId() : Integer.MIN_VALUE;
+
+        int[] slots = hitScratch.elements();
+        int count = hitScratch.size();
 
-        double bMinX = box.minX, bMinY = box.minY, bMinZ = box.minZ;
-        double bMaxX = box.maxX, bMaxY = box.maxY, bMaxZ = box.maxZ;
+        for (int i = 0; i < count; i++) {
+            Entity e = core.getBody(slots[i]);
+            if (e == null || e.getId() == exceptId) continue;
+            if (e.isSpectator()) continue;
+
+            result.add(e);
+        }
+
+        return result;
+    }
+
+    /**
+     * closest player within maxDistance of the point that passes predicate,
+     * same rules as vanilla getClosestPlayer. candidates come from the player
+     * index, the exact squared distance is taken on the live entity.
+     */
+    public @Nullable PlayerEntity getClosestPlayer(double x, double y, double z, double maxDistance,
+                                                   @Nullable Predicate<Entity> predicate) {
+        hitScratch.clear();
+        core.collectPlayersWithinRadius(x, y, z, maxDistance + PLAYER_SLACK, hitScratch);
 
-        int[] slots = candidateScratch.elements();
-        int count = candidateScratch.size();
+        double maxSq = maxDistance * maxDistance;
+        double bestSq = -1.0;
+        PlayerEntity best = null;
+
+        int[] slots = hitScratch.elements();
+        int count = hitScratch.size();
 
         for (int i = 0; i < count; i++) {
-            int slot = slots[i];
-            if (slot < 0 || slot >= slotMap.activeCount()) continue;
+            if (!(core.getBody(slots[i]) instanceof PlayerEntity player)) continue;
+            if (predicate != null && !predicate.test(player)) continue;
 
-            // fast AABB overlap from SoA
-            if (!data.overlapsBox(slot, bMinX, bMinY, bMinZ, bMaxX, bMaxY, bMaxZ)) {
-                continue;
+            double distSq = player.squaredDistanceTo(x, y, z);
+            if (distSq < maxSq && (bestSq == -1.0 || distSq < bestSq)) {
+                bestSq = distSq;
+                best = player;
             }
+        }
+
+        return best;
+    }
+
+    /** true if a live non spectator player is within range, same rules as vanilla isPlayerInRange */
+    public boolean isPlayerInRange(double x, double y, double z, double range) {
+        hitScratch.clear();
+        core.collectPlayersWithinRadius(x, y, z, range + PLAYER_SLACK, hitScratch);
+
+        double rangeSq = range * range;
+        int[] slots = hitScratch.elements();
+        int count = hitScratch.size();
+
+        for (int i = 0; i < count; i++) {
+            if (!(core.getBody(slots[i]) instanceof PlayerEntity player)) continue;
+            if (!EntityPredicates.EXCEPT_SPECTATOR.test(player)
+                    || !EntityPredicates.VALID_LIVING_ENTITY.test(player)) continue;
+
+            if (player.squaredDistanceTo(x, y, z) < rangeSq) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * returns collision shapes for collidable entities overlapping box.
+     * replacement for vanilla getEntityCollisions.
+     */
+    public List<VoxelShape> getEntityCollisionShapes(@Nullable Entity querier, Box box) {
+        List<VoxelShape> result = new ArrayList<>();
+        hitScratch.clear();
+        core.collectHardOverlapping(box.minX, box.minY, box.minZ,
+                box.maxX, box.maxY, box.maxZ, hitScratch);
+
+        int querierId = querier != null ? querier.getId() : Integer.MIN_VALUE;
+
+        int[] slots = hitScratch.elements();
+        int count = hitScratch.size();
 
-            Entity e = slotMap.getEntity(slot);
+        for (int i = 0; i < count; i++) {
+            Entity e = core.getBody(slots[i]);
             if (e == null || e.getId() == querierId) continue;
             if (!e.isCollidable(querier)) continue;
 
-            if (querier != null) {
-                shapes.add(VoxelShapes.cuboid(e.getBoundingBox()));
-            } else {
-                shapes.add(VoxelShapes.cuboid(e.getBoundingBox()));
+            result.add(shapeOf(slots[i], e));
+        }
+
+        return result;
+    }
+
+    /** returns cached shape of slot, rebuilt when the entity box changed */
+    private VoxelShape shapeOf(int slot, Entity e) {
+        if (slot >= shapes.length) {
+            int len = Math.max(shapes.length * 2, slot + 1);
+            shapeBoxes = Arrays.copyOf(shapeBoxes, len);
+            shapes = Arrays.copyOf(shapes, len);
+        }
+
+        Box box = e.getBoundingBox();
+        Box cached = shapeBoxes[slot];
+        if (cached != box) {
+            // idle entities still get a fresh but equal box from setPosition
+            if (cached == null || !cached.equals(box)) {
+                shapes[slot] = VoxelShapes.cuboid(box);
             }
+            shapeBoxes[slot] = box;
         }
+        return shapes[slot];
+    }
 
-        return shapes;
+    /** drops all cached shapes */
+    public void clearShapes() {
+        Arrays.fill(shapeBoxes, null);
+        Arrays.fill(shapes, null);
     }
 
-    /** populates scratch list with slot IDs from grid cells and oversized list */
-    private void collectCandidates(Box box) {
-        candidateScratch.clear();
-        grid.collectSlotsInBox(box.minX, box.minZ, box.maxX, box.maxZ, candidateScratch);
-        oversized.collectAll(candidateScratch);
+    /** populates scratch list with slots whose SoA box overlaps query box */
+    private void collectHits(Box box) {
+        hitScratch.clear();
+        core.collectOverlapping(box.minX, box.minY, box.minZ,
+                box.maxX, box.maxY, box.maxZ, hitScratch);
     }
 }
@@ -1,141 +0,0 @@
-package com.dripps.flatcollision.engine;
-
-import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
-import net.minecraft.entity.Entity;
-import org.jetbrains.annotations.Nullable;
-
-/**
- * bidirectional mapping between entity IDs and dense SoA slot indices.
- * uses swap and pop strategy to keep active region packed with no gaps.
- */
-public final class EntitySlotMap {
-
-    private static final int INITIAL_CAPACITY = 1024;
-
-    /** sentinel value for missing entries in int map */
-    private static final int MISSING = -1;
-
-    /** sparse entity id to slot index map, no autoboxing */
-    private final Int2IntOpenHashMap entityIdToSlot = new Int2IntOpenHashMap();
-
-    /** dense slot index to entity reference array */
-    private Entity[] slotToEntity;
-
-    /** number of active slots */
-    private int activeCount;
-
-    private final SoAEntityData data;
-
-    public EntitySlotMap(SoAEntityData data) {
-        this.data = data;
-        this.slotToEntity = new Entity[INITIAL_CAPACITY];
-        this.activeCount = 0;
-        entityIdToSlot.defaultReturnValue(MISSING);
-    }
-
-    public int activeCount() {
-        return activeCount;
-    }
-
-    /** returns slot index for entity or -1 if not tracked */
-    public int getSlot(Entity entity) {
-        return entityIdToSlot.get(entity.getId());
-    }
-
-    /** returns slot index for entity id or -1 if not tracked */
-    public int getSlot(int entityId) {
-        return entityIdToSlot.get(entityId);
-    }
-
-    /** returns entity reference at slot */
-    @Nullable
-    public Entity getEntity(int slot) {
-        if (slot < 0 || slot >= activeCount) return null;
-        return slotToEntity[slot];
-    }
-
-    public boolean isTracked(Entity entity) {
-        return entityIdToSlot.containsKey(entity.getId());
-    }
-
-    /**
-     * allocates new slot for entity and writes initial physics data.
-     * returns allocated slot index or -1 if already tracked.
-     */
-    public int allocate(Entity entity) {
-        int id = entity.getId();
-        if (entityIdToSlot.containsKey(id)) return -1;
-
-        int slot = activeCount;
-        ensureSlotCapacity(slot + 1);
-
-        entityIdToSlot.put(id, slot);
-        slotToEntity[slot] = entity;
-        activeCount++;
-
-        syncEntityToSlot(entity, slot);
-        data.setSize(activeCount);
-        return slot;
-    }
-
-    /**
-     * removes entity using swap and pop. last active entity data moves into
-     * vacated slot. returns freed slot index or -1 if not tracked.
-     */
-    public int free(Entity entity) {
-        int removedSlot = entityIdToSlot.remove(entity.getId());
-        if (removedSlot == MISSING) return -1;
-        int lastSlot = activeCount - 1;
-
-        if (removedSlot != lastSlot) {
-            Entity lastEntity = slotToEntity[lastSlot];
-            slotToEntity[removedSlot] = lastEntity;
-            entityIdToSlot.put(lastEntity.getId(), removedSlot);
-
-            data.copySlot(lastSlot, removedSlot);
-        }
-
-        slotToEntity[lastSlot] = null;
-        activeCount--;
-        data.setSize(activeCount);
-        return removedSlot;
-    }
-
-    /** syncs entity state into SoA slot */
-    public void syncEntityToSlot(Entity entity, int slot) {
-        data.setPosition(slot, entity.getX(), entity.getY(), entity.getZ());
-        net.minecraft.util.math.Vec3d vel = entity.getVelocity();
-        data.setVelocity(slot, vel.x, vel.y, vel.z);
-        data.setDimensions(slot, entity.getWidth() / 2.0, entity.getHeight());
-    }
-
-    /** bulk syncs all tracked entity positions into SoA arrays */
-    public void syncAll() {
-        for (int i = 0; i < activeCount; i++) {
-            Entity e = slotToEntity[i];
-            if (e != null && e.isAlive()) {
-                syncEntityToSlot(e, i);
-            }
-        }
-    }
-
-    private void ensureSlotCapacity(int required) {
-        data.ensureCapacity(required);
-        if (required > slotToEntity.length) {
-            int newLen = Math.max(slotToEntity.length * 2, required);
-            Entity[] grown = new Entity[newLen];
-            System.arraycopy(slotToEntity, 0, grown, 0, activeCount);
-            slotToEntity = grown;
-        }
-    }
-
-    /** releases all references */
-    public void clear() {
-        entityIdToSlot.clear();
-        for (int i = 0; i < activeCount; i++) {
-            slotToEntity[i] = null;
-        }
-        activeCount = 0;
-        data.setSize(0);
-    }
-}
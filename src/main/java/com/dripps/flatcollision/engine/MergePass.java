@@ -0,0 +1,105 @@
+package com.dripps.flatcollision.engine;
+
+import com.dripps.flatcollision.core.PhysicsCore;
+import com.dripps.flatcollision.mixin.ExperienceOrbEntityAccessor;
+import com.dripps.flatcollision.mixin.ItemEntityAccessor;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.ExperienceOrbEntity;
+import net.minecraft.entity.ItemEntity;
+
+/**
+ * item and xp orb merging in one sweep per tick. vanilla lets every item
+ * (every 2 or 40 ticks) and orb (every 20 ticks) run its own box query for
+ * merge partners. those calls only record the entity here. once the world
+ * ticked its entities, the same tick, the pass resyncs items or orbs to where
+ * they moved, pairs all recorded entities with their neighbors in one sort
+ * and sweep per grid cell, then applies vanilla's own merge rules to each
+ * pair, before block entities like hoppers tick.
+ */
+public final class MergePass {
+
+    public static final int KIND_NONE = 0;
+    public static final int KIND_ITEM = 1;
+    public static final int KIND_ORB = 2;
+
+    /** vanilla grows the item box by 0.5 horizontally and the orb box by 0.5 on all axes */
+    private static final double MERGE_EXPAND = 0.5;
+
+    private final PhysicsCore<Entity> core;
+
+    /** entity ids that asked for a merge since the last pass */
+    private final IntArrayList pendingItems = new IntArrayList();
+    private final IntArrayList pendingOrbs = new IntArrayList();
+
+    private final IntArrayList pairScratch = new IntArrayList();
+
+    MergePass(PhysicsCore<Entity> core) {
+        this.core = core;
+    }
+
+    /** merge kind of an entity, read once when it is tracked */
+    public static int kindOf(Entity entity) {
+        if (entity instanceof ItemEntity) return KIND_ITEM;
+        if (entity instanceof ExperienceOrbEntity) return KIND_ORB;
+        return KIND_NONE;
+    }
+
+    /** called instead of the item's own merge query */
+    public void requestItemMerge(ItemEntity item) {
+        pendingItems.add(item.getId());
+    }
+
+    /** called instead of the orb's own merge query */
+    public void requestOrbMerge(ExperienceOrbEntity orb) {
+        pendingOrbs.add(orb.getId());
+    }
+
+    /** runs after the entity phase, merges every entity recorded during it */
+    void run() {
+        if (!pendingItems.isEmpty()) {
+            core.syncMergeKind(KIND_ITEM);
+            pairScratch.clear();
+            core.collectMergePairs(pendingItems, KIND_ITEM, MERGE_EXPAND, 0.0, pairScratch);
+            mergeItems();
+            pendingItems.clear();
+        }
+        if (!pendingOrbs.isEmpty()) {
+            core.syncMergeKind(KIND_ORB);
+            pairScratch.clear();
+            core.collectMergePairs(pendingOrbs, KIND_ORB, MERGE_EXPAND, MERGE_EXPAND, pairScratch);
+            mergeOrbs();
+            pendingOrbs.clear();
+        }
+    }
+
+    /** same checks as vanilla ItemEntity.tryMerge, owner and stack rules stay in tryMerge(other) */
+    private void mergeItems() {
+        int[] pairs = pairScratch.elements();
+        for (int i = 0, n = pairScratch.size(); i < n; i += 2) {
+            if (!(core.getBody(pairs[i]) instanceof ItemEntity item)) continue;
+            if (!(core.getBody(pairs[i + 1]) instanceof ItemEntity other)) continue;
+            if (item.isRemoved() || other.isRemoved()) continue;
+
+            ItemEntityAccessor self = (ItemEntityAccessor) item;
+            if (!self.flatcollision$canMerge()) continue;
+            if (!((ItemEntityAccessor) other).flatcollision$canMerge()) continue;
+            self.flatcollision$tryMerge(other);
+        }
+    }
+
+    /** same checks as vanilla ExperienceOrbEntity.expensiveUpdate */
+    private void mergeOrbs() {
+        int[] pairs = pairScratch.elements();
+        for (int i = 0, n = pairScratch.size(); i < n; i += 2) {
+            if (!(core.getBody(pairs[i]) instanceof ExperienceOrbEntity orb)) continue;
+            if (!(core.getBody(pairs[i + 1]) instanceof ExperienceOrbEntity other)) continue;
+            if (orb.isRemoved()) continue;
+
+            ExperienceOrbEntityAccessor self = (ExperienceOrbEntityAccessor) orb;
+            if (self.flatcollision$isMergeable(other)) {
+                self.flatcollision$merge(other);
+            }
+        }
+    }
+}
@@ -1,41 +1,75 @@
 package com.dripps.flatcollision.engine;
 
+import com.dripps.flatcollision.FlatcollisionConfig;
+import com.dripps.flatcollision.core.PhysicsCore;
 import net.minecraft.entity.Entity;
-import net.minecraft.server.world.ServerWorld;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.SpawnDensityCapper;
+import net.minecraft.world.SpawnHelper;
+import net.minecraft.world.World;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.Predicate;
 
 /**
- * per world physics engine instance. owns SoA data, slot map, spatial grid,
- * oversized list, and collision query. tick lifecycle flushes staging queue,
- * syncs positions, updates grid, then handles redirected collision queries.
+ * per world physics engine instance. adapts a {@link PhysicsCore} of entities
+ * to minecraft: keyed by world, fed by lifecycle events, and serving the
+ * redirected collision queries through {@link CollisionQuery}. server worlds
+ * and the client world each get their own engine, every engine is only used
+ * from the thread that ticks its world.
  */
 public final class PhysicsEngine {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("FlatCollision");
 
-    private static final Map<ServerWorld, PhysicsEngine> ENGINES = new ConcurrentHashMap<>();
+    private static final Map<World, PhysicsEngine> ENGINES = new ConcurrentHashMap<>();
 
-    public static @Nullable PhysicsEngine get(ServerWorld world) {
+    /** global switch for the query redirects, engines keep tracking while off */
+    private static volatile boolean redirectsEnabled = true;
+
+    /** workers for parallel tick start, created on first use */
+    @Nullable
+    private static ForkJoinPool workers;
+
+    public static @Nullable PhysicsEngine get(World world) {
         return ENGINES.get(world);
     }
 
-    public static PhysicsEngine getOrCreate(ServerWorld world) {
+    /** returns engine that should serve redirected queries for world, or null for vanilla */
+    public static @Nullable PhysicsEngine redirectTarget(World world) {
+        if (!redirectsEnabled) return null;
+        PhysicsEngine engine = ENGINES.get(world);
+        return engine != null && engine.isActive() ? engine : null;
+    }
+
+    /** turns query redirects on or off, used for A/B benchmarks against vanilla */
+    public static void setRedirectsEnabled(boolean enabled) {
+        redirectsEnabled = enabled;
+    }
+
+    public static boolean redirectsEnabled() {
+        return redirectsEnabled;
+    }
+
+    public static PhysicsEngine getOrCreate(World world) {
         return ENGINES.computeIfAbsent(world, w -> {
             LOGGER.info("[FlatCollision] physics engine created for this guy: {}", w.getRegistryKey().getValue());
             return new PhysicsEngine(w);
         });
     }
 
-    public static void remove(ServerWorld world) {
+    public static void remove(World world) {
         PhysicsEngine engine = ENGINES.remove(world);
         if (engine != null) {
             engine.shutdown();
@@ -48,126 +82,116 @@ public final class PhysicsEngine {
         ENGINES.clear();
     }
 
-    private final ServerWorld world;
-    private final SoAEntityData data;
-    private final EntitySlotMap slotMap;
-    private final SpatialGrid grid;
-    private final OversizedEntityList oversized;
-    private final CollisionQuery query;
-    private final StagingQueue staging;
-
-    /** tracks whether engine is active */
-    private volatile boolean active = true;
-
-    private PhysicsEngine(ServerWorld world) {
-        this.world = world;
-        this.data = new SoAEntityData();
-        this.slotMap = new EntitySlotMap(data);
-        this.grid = new SpatialGrid();
-        this.oversized = new OversizedEntityList();
-        this.query = new CollisionQuery(data, slotMap, grid, oversized);
-        this.staging = new StagingQueue();
-    }
-
     /**
-     * called at start of each tick. drains staging queue, syncs entity positions
-     * to SoA arrays, and updates spatial grid for moved entities.
+     * tick start of all server worlds. with parallel tick start on, staging
+     * queues drain on the server thread, then every world syncs positions on
+     * the pool at once and big worlds split their slots too. logs, spawn
+     * groups and activation are applied back on the server thread, world by
+     * world.
      */
-    public void onTickStart() {
-        if (!active) return;
-
-        staging.flush(this);
-
-        int count = slotMap.activeCount();
-        for (int slot = 0; slot < count; slot++) {
-            Entity entity = slotMap.getEntity(slot);
-            if (entity == null || !entity.isAlive()) {
-                if (entity != null) staging.enqueueRemove(entity);
-                continue;
-            }
-
-            double oldX = data.getPosX(slot);
-            double oldZ = data.getPosZ(slot);
+    public static void tickStartAll(Iterable<? extends World> worlds) {
+        List<PhysicsEngine> engines = new ArrayList<>();
+        for (World world : worlds) {
+            PhysicsEngine engine = ENGINES.get(world);
+            if (engine != null) engines.add(engine);
+        }
 
-            slotMap.syncEntityToSlot(entity, slot);
+        ForkJoinPool pool = FlatcollisionConfig.parallelTickStart ? workers() : null;
+        if (pool == null) {
+            engines.forEach(PhysicsEngine::onTickStart);
+            return;
+        }
 
-            double newX = data.getPosX(slot);
-            double newZ = data.getPosZ(slot);
+        List<ForkJoinTask<?>> syncs = new ArrayList<>(engines.size());
+        for (PhysicsEngine engine : engines) {
+            engine.core.beginTickStart();
+            boolean split = engine.core.trackedCount() >= FlatcollisionConfig.parallelSyncThreshold;
+            syncs.add(ForkJoinTask.adapt(() -> engine.core.syncPositions(split ? pool : null)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(syncs)));
 
-            if (!OversizedEntityList.isOversized(entity.getWidth())) {
-                grid.update(slot, oldX, oldZ, newX, newZ);
-            }
+        for (PhysicsEngine engine : engines) {
+            engine.core.finishTickStart();
+            engine.updateActivation();
         }
     }
 
-    /** directly tracks entity, called from staging queue flush */
-    public void trackEntityDirect(Entity entity) {
-        if (!active) return;
-        if (slotMap.isTracked(entity)) return;
-
-        int slot = slotMap.allocate(entity);
-        if (slot < 0) return;
-
-        double width = entity.getWidth();
-        if (OversizedEntityList.isOversized(width)) {
-            oversized.add(slot);
-        } else {
-            grid.insert(slot, entity.getX(), entity.getZ());
+    private static synchronized ForkJoinPool workers() {
+        ForkJoinPool pool = workers;
+        if (pool == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            pool = new ForkJoinPool(threads, p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setName("FlatCollision Engine Worker-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+            workers = pool;
+            LOGGER.info("[FlatCollision] parallel tick start on {} workers", threads);
         }
+        return pool;
     }
 
-    /** directly untracks entity, called from staging queue flush */
-    public void untrackEntityDirect(Entity entity) {
-        if (!active) return;
-        int slot = slotMap.getSlot(entity);
-        if (slot < 0) return;
+    private final World world;
+    private final PhysicsCore<Entity> core;
+    private final CollisionQuery query;
+    private final TrackerVisibility trackerVisibility;
+    private final ActivationRange activationRange;
+    private final SpawnCounts spawnCounts;
+    private final MergePass mergePass;
 
-        double width = entity.getWidth();
-        double x = data.getPosX(slot);
-        double z = data.getPosZ(slot);
+    private PhysicsEngine(World world) {
+        this.world = world;
+        this.core = new PhysicsCore<>(FlatcollisionConfig.deferredRemoval);
+        this.query = new CollisionQuery(core);
+        this.trackerVisibility = new TrackerVisibility(core);
+        this.activationRange = new ActivationRange(core);
+        this.spawnCounts = new SpawnCounts(core, world);
+        this.mergePass = new MergePass(core);
+    }
 
-        if (OversizedEntityList.isOversized(width)) {
-            oversized.remove(slot);
-        } else {
-            grid.remove(slot, x, z);
-        }
+    /**
+     * called at start of each tick. drains staging queue, syncs entity positions
+     * to SoA arrays, and updates spatial grid for moved entities. server
+     * worlds then reclassify activation range when it is enabled.
+     */
+    public void onTickStart() {
+        core.tickStart();
+        updateActivation();
+    }
 
-        int lastSlot = slotMap.activeCount() - 1;
-        if (slot != lastSlot && lastSlot >= 0) {
-            Entity movedEntity = slotMap.getEntity(lastSlot);
-            if (movedEntity != null) {
-                double movedX = data.getPosX(lastSlot);
-                double movedZ = data.getPosZ(lastSlot);
-                double movedWidth = movedEntity.getWidth();
-
-                if (OversizedEntityList.isOversized(movedWidth)) {
-                    oversized.remove(lastSlot);
-                } else {
-                    grid.remove(lastSlot, movedX, movedZ);
-                }
-
-                slotMap.free(entity);
-
-                if (OversizedEntityList.isOversized(movedWidth)) {
-                    oversized.add(slot);
-                } else {
-                    grid.insert(slot, movedX, movedZ);
-                }
-                return;
-            }
+    private void updateActivation() {
+        if (FlatcollisionConfig.activationRange && !world.isClient()) {
+            activationRange.update(world.getTime());
         }
+    }
+
+    /**
+     * called once the world ticked its entities, before block entities. runs
+     * the item and orb merges requested during this tick's entity phase.
+     */
+    public void onEntitiesTicked() {
+        mergePass.run();
+    }
 
-        slotMap.free(entity);
+    /** called at end of each tick, closes slots tombstoned during the tick */
+    public void onTickEnd() {
+        core.tickEnd();
     }
 
     /** thread safe, enqueues entity to be added on next tick */
     public void trackEntity(Entity entity) {
-        staging.enqueueAdd(entity);
+        core.track(entity);
     }
 
-    /** thread safe, enqueues entity to be removed on next tick */
+    /**
+     * thread safe, enqueues entity to be removed on next tick. players only
+     * leave a world from its own thread, their tracker state is dropped here.
+     */
     public void untrackEntity(Entity entity) {
-        staging.enqueueRemove(entity);
+        core.untrack(entity);
+        if (entity instanceof PlayerEntity) {
+            trackerVisibility.forget(entity);
+        }
     }
 
     /** replacement for vanilla getOtherEntities using spatial grid */
@@ -176,33 +200,77 @@ public final class PhysicsEngine {
         return query.getEntitiesInBox(except, box, predicate);
     }
 
+    /** replacement for the explosion damage entity scan, radius culled from SoA */
+    public List<Entity> getExplosionTargets(@Nullable Entity except, Box box,
+                                            double centerX, double centerY, double centerZ,
+                                            double radius) {
+        return query.getExplosionTargets(except, box, centerX, centerY, centerZ, radius);
+    }
+
+    /**
+     * true while the player index holds exactly the world's players. a player
+     * that joined this tick is still staged, so queries stay vanilla until the
+     * next tick start picks it up.
+     */
+    public boolean servesPlayerQueries() {
+        return core.playerCount() == world.getPlayers().size();
+    }
+
+    /** replacement for vanilla getClosestPlayer with a range */
+    public @Nullable PlayerEntity getClosestPlayer(double x, double y, double z, double maxDistance,
+                                                   @Nullable Predicate<Entity> predicate) {
+        return query.getClosestPlayer(x, y, z, maxDistance, predicate);
+    }
+
+    /** replacement for vanilla isPlayerInRange */
+    public boolean isPlayerInRange(double x, double y, double z, double range) {
+        return query.isPlayerInRange(x, y, z, range);
+    }
+
     /** replacement for vanilla getEntityCollisions */
     public List<VoxelShape> getEntityCollisionShapes(@Nullable Entity querier, Box box) {
         return query.getEntityCollisionShapes(querier, box);
     }
 
+    /** narrows the entity tracker pass for players that changed section */
+    public TrackerVisibility trackerVisibility() {
+        return trackerVisibility;
+    }
+
+    /** replacement for vanilla SpawnHelper.setupSpawn using the grid's spawn counters */
+    public SpawnHelper.Info setupSpawn(int spawningChunkCount, SpawnHelper.ChunkSource chunkSource,
+                                       SpawnDensityCapper densityCapper) {
+        return spawnCounts.setupSpawn(spawningChunkCount, chunkSource, densityCapper);
+    }
+
+    /** collects item and orb merge requests for the next tick start */
+    public MergePass mergePass() {
+        return mergePass;
+    }
+
+    /** decides which far away mobs skip their tick */
+    public ActivationRange activationRange() {
+        return activationRange;
+    }
+
     public int trackedEntityCount() {
-        return slotMap.activeCount();
+        return core.trackedCount();
     }
 
     public int gridCellCount() {
-        return grid.cellCount();
+        return core.gridCellCount();
     }
 
     public int oversizedCount() {
-        return oversized.size();
+        return core.oversizedCount();
     }
 
     public boolean isActive() {
-        return active;
+        return core.isActive();
     }
 
     private void shutdown() {
-        active = false;
-        staging.clear();
-        slotMap.clear();
-        grid.clear();
-        oversized.clear();
-        data.free();
+        core.shutdown();
+        query.clearShapes();
     }
 }
@@ -0,0 +1,83 @@
+package com.dripps.flatcollision.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * optional wall clock accounting of entity queries, vanilla or redirected.
+ * off by default, benchmarks switch it on around measured ticks. only the
+ * outermost query is timed since vanilla getEntityCollisions nests a
+ * getOtherEntities call. nesting is tracked per thread, so client and
+ * integrated server queries do not interleave, and totals add up over all
+ * threads.
+ */
+public final class QueryTimer {
+
+    private static volatile boolean enabled = false;
+
+    /** bumped by every toggle and reset, threads drop their nesting when it moved */
+    private static volatile int epoch;
+
+    private static final ThreadLocal<Nesting> NESTING = ThreadLocal.withInitial(Nesting::new);
+
+    private static final LongAdder totalNanos = new LongAdder();
+    private static final LongAdder queryCount = new LongAdder();
+
+    /** nesting of the current thread's queries */
+    private static final class Nesting {
+        int epoch = QueryTimer.epoch;
+        int depth;
+        long startNanos;
+    }
+
+    private QueryTimer() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** starts or stops accounting, resets nesting so a toggle mid query is harmless */
+    public static void setEnabled(boolean on) {
+        epoch++;
+        enabled = on;
+    }
+
+    public static void begin() {
+        Nesting n = nesting();
+        if (n.depth++ == 0) {
+            n.startNanos = System.nanoTime();
+        }
+    }
+
+    public static void end() {
+        Nesting n = nesting();
+        if (n.depth == 0) return;
+        if (--n.depth == 0) {
+            totalNanos.add(System.nanoTime() - n.startNanos);
+            queryCount.increment();
+        }
+    }
+
+    public static long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public static long queryCount() {
+        return queryCount.sum();
+    }
+
+    public static void reset() {
+        epoch++;
+        totalNanos.reset();
+        queryCount.reset();
+    }
+
+    private static Nesting nesting() {
+        Nesting n = NESTING.get();
+        int current = epoch;
+        if (n.epoch != current) {
+            n.epoch = current;
+            n.depth = 0;
+        }
+        return n;
+    }
+}
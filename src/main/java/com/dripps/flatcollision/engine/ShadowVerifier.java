@@ -0,0 +1,193 @@
+package com.dripps.flatcollision.engine;
+
+import com.dripps.flatcollision.FlatcollisionConfig;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.EntityView;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * differential check of redirected queries. 1 in N queries also run the
+ * vanilla path, result sets are compared and mismatches logged with both
+ * timings. the redirected result is always the one returned, so sampling
+ * only costs time. mismatch logs are rate limited, counters keep the totals.
+ * the bypass flag, sample counter and log limit are per thread, so the client
+ * and integrated server threads never see each other's shadow calls. totals
+ * add up over all threads. a global count of shadow calls in flight keeps
+ * the per thread lookup off the query path while none is running.
+ */
+public final class ShadowVerifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("FlatCollision/Shadow");
+
+    /** at most one mismatch log per interval, the rest are counted */
+    private static final long LOG_INTERVAL_NANOS = 5_000_000_000L;
+
+    /** entities listed per side in a mismatch log */
+    private static final int MAX_LISTED = 4;
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    /** shadow calls in flight on any thread, lets queries skip the thread local while zero */
+    private static final AtomicInteger activeBypasses = new AtomicInteger();
+
+    private static final LongAdder samples = new LongAdder();
+    private static final LongAdder mismatches = new LongAdder();
+
+    /** shadow state of one query thread */
+    private static final class State {
+        /** set while the vanilla path runs so the mixins do not redirect it */
+        boolean bypass;
+        int counter;
+        long suppressed;
+        long lastLogNanos = Long.MIN_VALUE;
+    }
+
+    private ShadowVerifier() {}
+
+    /** true while a shadow vanilla call is in flight on this thread */
+    public static boolean isBypassing() {
+        return activeBypasses.get() != 0 && STATE.get().bypass;
+    }
+
+    /** counts a redirected query, true when it should be shadowed */
+    public static boolean shouldSample() {
+        int rate = FlatcollisionConfig.shadowSampleRate;
+        if (rate <= 0) return false;
+        State state = STATE.get();
+        if (++state.counter < rate) return false;
+        state.counter = 0;
+        return true;
+    }
+
+    /** redirected getOtherEntities checked against vanilla */
+    public static List<Entity> otherEntities(World world, PhysicsEngine engine, @Nullable Entity except,
+                                             Box box, Predicate<? super Entity> predicate) {
+        long t0 = System.nanoTime();
+        List<Entity> flat = engine.getEntitiesInBox(except, box, predicate);
+        long t1 = System.nanoTime();
+
+        List<Entity> vanilla;
+        State state = STATE.get();
+        state.bypass = true;
+        activeBypasses.incrementAndGet();
+        try {
+            vanilla = world.getOtherEntities(except, box, predicate);
+        } finally {
+            activeBypasses.decrementAndGet();
+            state.bypass = false;
+        }
+        long t2 = System.nanoTime();
+
+        samples.increment();
+        Set<Entity> flatSet = new ReferenceOpenHashSet<>(flat);
+        Set<Entity> vanillaSet = new ReferenceOpenHashSet<>(vanilla);
+        if (!flatSet.equals(vanillaSet)) {
+            reportMismatch("getOtherEntities", box, t1 - t0, t2 - t1,
+                    describe(difference(vanillaSet, flatSet)),
+                    describe(difference(flatSet, vanillaSet)));
+        }
+        return flat;
+    }
+
+    /** redirected getEntityCollisions checked against vanilla, shapes compared by bounds */
+    public static List<VoxelShape> entityCollisions(EntityView view, PhysicsEngine engine,
+                                                    @Nullable Entity entity, Box box) {
+        long t0 = System.nanoTime();
+        List<VoxelShape> flat = engine.getEntityCollisionShapes(entity, box);
+        long t1 = System.nanoTime();
+
+        List<VoxelShape> vanilla;
+        State state = STATE.get();
+        state.bypass = true;
+        activeBypasses.incrementAndGet();
+        try {
+            vanilla = view.getEntityCollisions(entity, box);
+        } finally {
+            activeBypasses.decrementAndGet();
+            state.bypass = false;
+        }
+        long t2 = System.nanoTime();
+
+        samples.increment();
+        Set<Box> flatBounds = bounds(flat);
+        Set<Box> vanillaBounds = bounds(vanilla);
+        if (!flatBounds.equals(vanillaBounds)) {
+            reportMismatch("getEntityCollisions", box, t1 - t0, t2 - t1,
+                    describe(difference(vanillaBounds, flatBounds)),
+                    describe(difference(flatBounds, vanillaBounds)));
+        }
+        return flat;
+    }
+
+    private static Set<Box> bounds(List<VoxelShape> shapes) {
+        Set<Box> out = new ObjectOpenHashSet<>(shapes.size());
+        for (VoxelShape shape : shapes) {
+            if (!shape.isEmpty()) out.add(shape.getBoundingBox());
+        }
+        return out;
+    }
+
+    private static <T> List<T> difference(Set<T> a, Set<T> b) {
+        List<T> out = new ArrayList<>();
+        for (T t : a) {
+            if (!b.contains(t)) out.add(t);
+        }
+        return out;
+    }
+
+    private static String describe(List<?> items) {
+        if (items.isEmpty()) return "none";
+        StringBuilder sb = new StringBuilder();
+        sb.append(items.size()).append(" [");
+        for (int i = 0, n = Math.min(items.size(), MAX_LISTED); i < n; i++) {
+            if (i > 0) sb.append(", ");
+            Object o = items.get(i);
+            if (o instanceof Entity e) {
+                sb.append(e.getType()).append('#').append(e.getId());
+            } else {
+                sb.append(o);
+            }
+        }
+        if (items.size() > MAX_LISTED) sb.append(", ...");
+        return sb.append(']').toString();
+    }
+
+    private static void reportMismatch(String query, Box box, long flatNanos, long vanillaNanos,
+                                       String missing, String extra) {
+        mismatches.increment();
+        State state = STATE.get();
+        long now = System.nanoTime();
+        if (state.lastLogNanos != Long.MIN_VALUE && now - state.lastLogNanos < LOG_INTERVAL_NANOS) {
+            state.suppressed++;
+            return;
+        }
+        state.lastLogNanos = now;
+
+        LOGGER.warn("[FlatCollision] shadow mismatch in {} box {}: missing {}, extra {}, flat {} us, vanilla {} us ({} of {} samples mismatched, {} logs suppressed)",
+                query, box, missing, extra, flatNanos / 1000, vanillaNanos / 1000,
+                mismatches.sum(), samples.sum(), state.suppressed);
+        state.suppressed = 0;
+    }
+
+    public static long sampleCount() {
+        return samples.sum();
+    }
+
+    public static long mismatchCount() {
+        return mismatches.sum();
+    }
+}
@@ -0,0 +1,169 @@
+package com.dripps.flatcollision.engine;
+
+import com.dripps.flatcollision.core.PhysicsCore;
+import com.dripps.flatcollision.mixin.SpawnHelperAccessor;
+import com.dripps.flatcollision.mixin.SpawnHelperInfoAccessor;
+import com.dripps.flatcollision.core.SpatialGrid;
+import com.dripps.flatcollision.mixin.SpawnDensityCapperAccessor;
+import com.dripps.flatcollision.mixin.SpawnDensityCounterAccessor;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.SpawnGroup;
+import net.minecraft.entity.mob.MobEntity;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.GravityField;
+import net.minecraft.world.SpawnDensityCapper;
+import net.minecraft.world.SpawnHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.SpawnSettings;
+import net.minecraft.world.chunk.Chunk;
+
+import java.util.Map;
+
+/**
+ * natural spawning setup served from the grid. the grid counts every mob
+ * that counts against a spawn cap per chunk aligned cell, so the mob cap
+ * totals and the per player density come from one chunk lookup per
+ * occupied cell instead of one per entity. spawn costs depend on each
+ * mob's biome, so counted mobs are visited for them, but only mobs whose
+ * type has a cost in one of the world's biomes. in most worlds that is
+ * none and the visit is skipped. same counting
+ * rules as vanilla setupSpawn: persistent mobs and the misc group are left
+ * out, mobs in unloaded chunks do not count, and bodies that are not a
+ * MobEntity count towards the cap but not the per player density, so they
+ * are kept under their own group ids.
+ */
+public final class SpawnCounts {
+
+    private static final SpawnGroup[] GROUPS = SpawnGroup.values();
+
+    private final PhysicsCore<Entity> core;
+    private final World world;
+
+    /** entity types with a spawn cost in any biome the world can generate, built on first use */
+    private ReferenceOpenHashSet<EntityType<?>> costTypes;
+
+    SpawnCounts(PhysicsCore<Entity> core, World world) {
+        this.core = core;
+        this.world = world;
+    }
+
+    /**
+     * 1 + spawn group ordinal if the entity counts against a spawn cap, offset
+     * by the number of groups when it is no MobEntity, else 0.
+     */
+    public static int groupOf(Entity entity) {
+        if (entity instanceof MobEntity mob && (mob.isPersistent() || mob.cannotDespawn())) return 0;
+        SpawnGroup group = entity.getType().getSpawnGroup();
+        if (group == SpawnGroup.MISC) return 0;
+        int id = entity instanceof MobEntity ? group.ordinal() + 1 : GROUPS.length + group.ordinal() + 1;
+        return id <= SpatialGrid.SPAWN_GROUPS ? id : 0;
+    }
+
+    /** spawn group of a non zero group id */
+    private static SpawnGroup spawnGroup(int id) {
+        return GROUPS[(id - 1) % GROUPS.length];
+    }
+
+    /**
+     * replacement for vanilla SpawnHelper.setupSpawn. counters were synced at
+     * tick start, entities loaded since then are still staged and counted
+     * one by one.
+     */
+    SpawnHelper.Info setupSpawn(int spawningChunkCount, SpawnHelper.ChunkSource chunkSource,
+                                SpawnDensityCapper densityCapper) {
+        GravityField potentials = new GravityField();
+        Object2IntOpenHashMap<SpawnGroup> groupToCount = new Object2IntOpenHashMap<>();
+
+        core.forEachSpawnCell((cellX, cellZ, counts) ->
+                chunkSource.query(ChunkPos.toLong(cellX, cellZ), chunk -> {
+                    ChunkPos chunkPos = chunk.getPos();
+                    for (int i = 0; i < counts.length; i++) {
+                        int count = counts[i];
+                        if (count == 0) continue;
+                        SpawnGroup group = spawnGroup(i + 1);
+                        if (i < GROUPS.length) increaseDensity(densityCapper, chunkPos, group, count);
+                        groupToCount.addTo(group, count);
+                    }
+                }));
+
+        ReferenceOpenHashSet<EntityType<?>> costTypes = costTypes();
+        if (!costTypes.isEmpty()) {
+            core.forEachSpawnCounted(entity -> {
+                if (!costTypes.contains(entity.getType())) return;
+                BlockPos pos = entity.getBlockPos();
+                chunkSource.query(ChunkPos.toLong(pos), chunk -> addPotential(entity, pos, chunk, potentials));
+            });
+        }
+
+        core.forEachPendingAdd(entity -> {
+            int group = groupOf(entity);
+            if (group == 0) return;
+            BlockPos pos = entity.getBlockPos();
+            chunkSource.query(ChunkPos.toLong(pos), chunk -> {
+                if (costTypes.contains(entity.getType())) addPotential(entity, pos, chunk, potentials);
+                if (entity instanceof MobEntity) densityCapper.increaseDensity(chunk.getPos(), spawnGroup(group));
+                groupToCount.addTo(spawnGroup(group), 1);
+            });
+        });
+
+        return SpawnHelperInfoAccessor.flatcollision$create(spawningChunkCount, groupToCount,
+                potentials, densityCapper);
+    }
+
+    /**
+     * same as count calls of increaseDensity for one chunk. the first call
+     * creates the density counters of every player in range, the rest is
+     * added to those counters at once.
+     */
+    private static void increaseDensity(SpawnDensityCapper densityCapper, ChunkPos chunkPos,
+                                        SpawnGroup group, int count) {
+        densityCapper.increaseDensity(chunkPos, group);
+        if (count == 1) return;
+
+        SpawnDensityCapperAccessor capper = (SpawnDensityCapperAccessor) densityCapper;
+        Map<ServerPlayerEntity, ?> counters = capper.flatcollision$getPlayersToDensityMap();
+        for (ServerPlayerEntity player : capper.flatcollision$getMobSpawnablePlayers(chunkPos)) {
+            ((SpawnDensityCounterAccessor) counters.get(player)).flatcollision$getGroupsToDensity()
+                    .mergeInt(group, count - 1, Integer::sum);
+        }
+    }
+
+    /**
+     * entity types some biome of the world's biome source charges a spawn cost
+     * for. the source lists every biome the world can generate, so types
+     * outside this set never add a potential.
+     */
+    private ReferenceOpenHashSet<EntityType<?>> costTypes() {
+        if (costTypes == null) {
+            costTypes = new ReferenceOpenHashSet<>();
+            if (world instanceof ServerWorld serverWorld) {
+                var biomeSource = serverWorld.getChunkManager().getChunkGenerator().getBiomeSource();
+                for (RegistryEntry<Biome> biome : biomeSource.getBiomes()) {
+                    SpawnSettings settings = biome.value().getSpawnSettings();
+                    for (EntityType<?> type : Registries.ENTITY_TYPE) {
+                        if (settings.getSpawnDensity(type) != null) costTypes.add(type);
+                    }
+                }
+            }
+        }
+        return costTypes;
+    }
+
+    /** spawn cost charge of the entity's biome, the nether soul sand valley has one */
+    private static void addPotential(Entity entity, BlockPos pos, Chunk chunk, GravityField potentials) {
+        SpawnSettings.SpawnDensity density = SpawnHelperAccessor.flatcollision$getBiomeDirectly(pos, chunk)
+                .getSpawnSettings().getSpawnDensity(entity.getType());
+        if (density != null) {
+            potentials.addPoint(pos, density.mass());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.dripps.flatcollision.engine;
+
+import com.dripps.flatcollision.core.PhysicsCore;
+import it.unimi.dsi.fastutil.ints.Int2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import net.minecraft.entity.Entity;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * narrows the entity tracker pass for players that changed chunk section.
+ * vanilla re-checks every tracker against those players. only entities within
+ * tracking range of the player's new position, or of the position at its
+ * previous pass, can change visibility, so only their trackers are updated.
+ * candidates come from grid cells and SoA positions. trackers of entities
+ * that changed section were already updated against all players that tick.
+ */
+public final class TrackerVisibility {
+
+    /**
+     * slack on top of tracking range. both the player and the entity may have
+     * moved within their chunk section since the pair was last checked.
+     */
+    private static final double SECTION_SLACK = 64.0;
+
+    private final PhysicsCore<Entity> core;
+
+    /** player position at its last pass, keyed by entity id */
+    private final Int2DoubleOpenHashMap lastX = new Int2DoubleOpenHashMap();
+    private final Int2DoubleOpenHashMap lastZ = new Int2DoubleOpenHashMap();
+
+    /** entity ids whose trackers must see the moved players this tick */
+    private final IntOpenHashSet candidates = new IntOpenHashSet();
+    private final IntArrayList slotScratch = new IntArrayList(256);
+
+    @Nullable
+    private List<? extends Entity> preparedFor;
+    private long preparedTick = Long.MIN_VALUE;
+
+    /** a moved player without a previous position sends every tracker to vanilla */
+    private boolean passAll;
+
+    TrackerVisibility(PhysicsCore<Entity> core) {
+        this.core = core;
+    }
+
+    /**
+     * builds the candidate set for this tick's moved players once, later calls
+     * with the same list are free. trackRange bounds every tracker's range.
+     */
+    public void prepare(List<? extends Entity> movedPlayers, double trackRange, long tick) {
+        if (preparedFor == movedPlayers && preparedTick == tick) return;
+        preparedFor = movedPlayers;
+        preparedTick = tick;
+
+        candidates.clear();
+        passAll = false;
+        double radius = trackRange + SECTION_SLACK;
+
+        for (int i = 0, n = movedPlayers.size(); i < n; i++) {
+            Entity player = movedPlayers.get(i);
+            int id = player.getId();
+
+            collect(player.getX(), player.getZ(), radius);
+            if (lastX.containsKey(id)) {
+                collect(lastX.get(id), lastZ.get(id), radius);
+            } else {
+                passAll = true;
+            }
+            lastX.put(id, player.getX());
+            lastZ.put(id, player.getZ());
+        }
+
+        // loaded after this tick's sync, not in the grid yet
+        core.forEachPendingAdd(body -> candidates.add(body.bodyId()));
+    }
+
+    /**
+     * records the moved players' positions on a tick vanilla updates every
+     * tracker itself, redirects off or engine inactive. the next prepared pass
+     * then starts from where the players were last checked, not from where
+     * they were when redirects went off.
+     */
+    public void remember(List<? extends Entity> movedPlayers, long tick) {
+        if (preparedFor == movedPlayers && preparedTick == tick) return;
+        preparedFor = movedPlayers;
+        preparedTick = tick;
+
+        candidates.clear();
+        passAll = true;
+        for (int i = 0, n = movedPlayers.size(); i < n; i++) {
+            Entity player = movedPlayers.get(i);
+            lastX.put(player.getId(), player.getX());
+            lastZ.put(player.getId(), player.getZ());
+        }
+    }
+
+    /** true when the tracker of entity must be updated against the moved players */
+    public boolean shouldUpdate(Entity entity) {
+        return passAll || candidates.contains(entity.getId());
+    }
+
+    /** forgets a player's last position, called when it leaves the world */
+    public void forget(Entity player) {
+        lastX.remove(player.getId());
+        lastZ.remove(player.getId());
+    }
+
+    private void collect(double x, double z, double radius) {
+        slotScratch.clear();
+        core.collectWithinHorizontalRadius(x, z, radius, slotScratch);
+        int[] slots = slotScratch.elements();
+        for (int i = 0, n = slotScratch.size(); i < n; i++) {
+            Entity e = core.getBody(slots[i]);
+            if (e != null) candidates.add(e.getId());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.core.PhysicsBody;
+import com.dripps.flatcollision.engine.ActivationRange;
+import com.dripps.flatcollision.engine.MergePass;
+import com.dripps.flatcollision.engine.SpawnCounts;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.Vec3d;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+
+/**
+ * makes every entity a {@link PhysicsBody} so the core can track it directly.
+ * the interface is also injected at compile time through loom, see
+ * fabric.mod.json, which lets engine code use PhysicsCore of Entity.
+ */
+@Mixin(Entity.class)
+public abstract class EntityPhysicsBodyMixin implements PhysicsBody {
+
+    @Shadow public abstract int getId();
+    @Shadow public abstract double getX();
+    @Shadow public abstract double getY();
+    @Shadow public abstract double getZ();
+    @Shadow public abstract Vec3d getVelocity();
+    @Shadow public abstract float getWidth();
+    @Shadow public abstract float getHeight();
+    @Shadow public abstract boolean isAlive();
+    @Shadow public abstract boolean isCollidable(@Nullable Entity entity);
+
+    @Override
+    public int bodyId() {
+        return getId();
+    }
+
+    @Override
+    public double bodyX() {
+        return getX();
+    }
+
+    @Override
+    public double bodyY() {
+        return getY();
+    }
+
+    @Override
+    public double bodyZ() {
+        return getZ();
+    }
+
+    @Override
+    public double bodyVelX() {
+        return getVelocity().x;
+    }
+
+    @Override
+    public double bodyVelY() {
+        return getVelocity().y;
+    }
+
+    @Override
+    public double bodyVelZ() {
+        return getVelocity().z;
+    }
+
+    @Override
+    public double bodyWidth() {
+        return getWidth();
+    }
+
+    @Override
+    public double bodyHeight() {
+        return getHeight();
+    }
+
+    @Override
+    public boolean isBodyAlive() {
+        return isAlive();
+    }
+
+    /**
+     * boats, minecarts and live shulkers answer true when loaded. happy ghasts
+     * only become collidable while ridden, so they are indexed up front.
+     */
+    @Override
+    public boolean isBodyHardCollider() {
+        return isCollidable(null) || (Object) this instanceof HappyGhastEntity;
+    }
+
+    @Override
+    public boolean isBodyPlayer() {
+        return (Object) this instanceof PlayerEntity;
+    }
+
+    @Override
+    public int bodyActivationGroup() {
+        return ActivationRange.groupOf((Entity) (Object) this);
+    }
+
+    @Override
+    public int bodySpawnGroup() {
+        return SpawnCounts.groupOf((Entity) (Object) this);
+    }
+
+    @Override
+    public int bodyMergeKind() {
+        return MergePass.kindOf((Entity) (Object) this);
+    }
+}
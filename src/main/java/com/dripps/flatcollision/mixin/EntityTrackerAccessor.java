@@ -0,0 +1,20 @@
+package com.dripps.flatcollision.mixin;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+import java.util.List;
+
+/** reaches into the package private entity tracker of the chunk loading manager */
+@Mixin(targets = "net.minecraft.server.world.ServerChunkLoadingManager$EntityTracker")
+public interface EntityTrackerAccessor {
+
+    @Accessor("entity")
+    Entity flatcollision$getEntity();
+
+    @Invoker("updateTrackedStatus")
+    void flatcollision$updateTrackedStatus(List<ServerPlayerEntity> players);
+}
@@ -0,0 +1,45 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerChunkLoadingManager;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Coerce;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import java.util.List;
+
+/**
+ * second loop of tickEntityMovement checks every entity tracker against the
+ * players that changed chunk section. trackers of entities the engine rules
+ * out by distance are skipped, see
+ * {@link com.dripps.flatcollision.engine.TrackerVisibility}.
+ */
+@Mixin(ServerChunkLoadingManager.class)
+public abstract class EntityTrackerVisibilityMixin {
+
+    @Shadow @Final ServerWorld world;
+
+    @Redirect(method = "tickEntityMovement", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/server/world/ServerChunkLoadingManager$EntityTracker;updateTrackedStatus(Ljava/util/List;)V",
+            ordinal = 1))
+    private void flatcollision$updateNearbyTrackers(@Coerce EntityTrackerAccessor tracker,
+                                                    List<ServerPlayerEntity> movedPlayers) {
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(world);
+        if (engine != null) {
+            // no tracker reaches past the server view distance, one chunk of margin
+            int viewDistance = world.getServer().getPlayerManager().getViewDistance();
+            engine.trackerVisibility().prepare(movedPlayers, (viewDistance + 1) * 16.0, world.getTime());
+            if (!engine.trackerVisibility().shouldUpdate(tracker.flatcollision$getEntity())) return;
+        } else {
+            // vanilla checks everything this tick, keep last positions current
+            PhysicsEngine idle = PhysicsEngine.get(world);
+            if (idle != null) idle.trackerVisibility().remember(movedPlayers, world.getTime());
+        }
+        tracker.flatcollision$updateTrackedStatus(movedPlayers);
+    }
+}
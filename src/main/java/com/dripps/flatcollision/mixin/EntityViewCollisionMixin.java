@@ -1,8 +1,9 @@
 package com.dripps.flatcollision.mixin;
 
 import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.QueryTimer;
+import com.dripps.flatcollision.engine.ShadowVerifier;
 import net.minecraft.entity.Entity;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.Box;
 import net.minecraft.util.shape.VoxelShape;
 import net.minecraft.world.EntityView;
@@ -26,11 +27,26 @@ public interface EntityViewCollisionMixin {
             Entity entity, Box box,
             CallbackInfoReturnable<List<VoxelShape>> cir) {
 
-        if (this instanceof ServerWorld serverWorld) {
-            PhysicsEngine engine = PhysicsEngine.get(serverWorld);
-            if (engine != null && engine.isActive()) {
-                cir.setReturnValue(engine.getEntityCollisionShapes(entity, box));
+        boolean timed = QueryTimer.isEnabled();
+        if (timed) QueryTimer.begin();
+
+        if (this instanceof World world && !ShadowVerifier.isBypassing()) {
+            PhysicsEngine engine = PhysicsEngine.redirectTarget(world);
+            if (engine != null) {
+                cir.setReturnValue(ShadowVerifier.shouldSample()
+                        ? ShadowVerifier.entityCollisions(world, engine, entity, box)
+                        : engine.getEntityCollisionShapes(entity, box));
+                if (timed) QueryTimer.end();
             }
         }
     }
+
+    /** closes query timing for the vanilla path, redirected path never gets here */
+    @Inject(method = "getEntityCollisions", at = @At("RETURN"))
+    default void flatcollision$timeVanillaGetEntityCollisions(
+            Entity entity, Box box,
+            CallbackInfoReturnable<List<VoxelShape>> cir) {
+
+        if (QueryTimer.isEnabled()) QueryTimer.end();
+    }
 }
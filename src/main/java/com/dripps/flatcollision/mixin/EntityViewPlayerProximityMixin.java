@@ -0,0 +1,58 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.QueryTimer;
+import com.dripps.flatcollision.engine.ShadowVerifier;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.world.EntityView;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import java.util.function.Predicate;
+
+/**
+ * serves ranged player lookups (mob targeting, spawner activation, despawn
+ * and raid checks) from the player index instead of walking every player.
+ * unbounded lookups and worlds whose player index lags stay vanilla.
+ */
+@Mixin(EntityView.class)
+public interface EntityViewPlayerProximityMixin {
+
+    @Inject(method = "getClosestPlayer(DDDDLjava/util/function/Predicate;)Lnet/minecraft/entity/player/PlayerEntity;",
+            at = @At("HEAD"), cancellable = true)
+    default void flatcollision$redirectGetClosestPlayer(
+            double x, double y, double z, double maxDistance, @Nullable Predicate<Entity> predicate,
+            CallbackInfoReturnable<PlayerEntity> cir) {
+
+        if (maxDistance < 0.0) return;
+        if (!(this instanceof World world) || ShadowVerifier.isBypassing()) return;
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(world);
+        if (engine == null || !engine.servesPlayerQueries()) return;
+
+        boolean timed = QueryTimer.isEnabled();
+        if (timed) QueryTimer.begin();
+        cir.setReturnValue(engine.getClosestPlayer(x, y, z, maxDistance, predicate));
+        if (timed) QueryTimer.end();
+    }
+
+    @Inject(method = "isPlayerInRange", at = @At("HEAD"), cancellable = true)
+    default void flatcollision$redirectIsPlayerInRange(
+            double x, double y, double z, double range,
+            CallbackInfoReturnable<Boolean> cir) {
+
+        if (range < 0.0) return;
+        if (!(this instanceof World world) || ShadowVerifier.isBypassing()) return;
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(world);
+        if (engine == null || !engine.servesPlayerQueries()) return;
+
+        boolean timed = QueryTimer.isEnabled();
+        if (timed) QueryTimer.begin();
+        cir.setReturnValue(engine.isPlayerInRange(x, y, z, range));
+        if (timed) QueryTimer.end();
+    }
+}
@@ -0,0 +1,16 @@
+package com.dripps.flatcollision.mixin;
+
+import net.minecraft.entity.ExperienceOrbEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/** reaches the private merge rules of xp orbs for the merge pass */
+@Mixin(ExperienceOrbEntity.class)
+public interface ExperienceOrbEntityAccessor {
+
+    @Invoker("isMergeable")
+    boolean flatcollision$isMergeable(ExperienceOrbEntity other);
+
+    @Invoker("merge")
+    void flatcollision$merge(ExperienceOrbEntity other);
+}
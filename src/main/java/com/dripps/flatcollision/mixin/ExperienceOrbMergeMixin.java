@@ -0,0 +1,38 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.ShadowVerifier;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.ExperienceOrbEntity;
+import net.minecraft.util.TypeFilter;
+import net.minecraft.util.math.Box;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * hands the orb's merge query over to the engine's merge pass. the player
+ * targeting part of the same update stays vanilla.
+ */
+@Mixin(ExperienceOrbEntity.class)
+public abstract class ExperienceOrbMergeMixin {
+
+    @Redirect(method = "expensiveUpdate", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/world/World;getEntitiesByType(Lnet/minecraft/util/TypeFilter;Lnet/minecraft/util/math/Box;Ljava/util/function/Predicate;)Ljava/util/List;"))
+    private List<ExperienceOrbEntity> flatcollision$deferMerge(World world,
+                                                              TypeFilter<Entity, ExperienceOrbEntity> filter,
+                                                              Box box,
+                                                              Predicate<? super ExperienceOrbEntity> predicate) {
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(world);
+        if (engine == null || ShadowVerifier.isBypassing()) {
+            return world.getEntitiesByType(filter, box, predicate);
+        }
+
+        engine.mergePass().requestOrbMerge((ExperienceOrbEntity) (Object) this);
+        return List.of();
+    }
+}
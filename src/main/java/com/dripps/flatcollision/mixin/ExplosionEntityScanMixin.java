@@ -0,0 +1,46 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.QueryTimer;
+import com.dripps.flatcollision.engine.ShadowVerifier;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.explosion.ExplosionImpl;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+import java.util.List;
+
+/**
+ * serves the entity scan of explosion damage from the engine. vanilla takes
+ * every entity in a box of twice the power around the center and then drops
+ * those farther than that, the engine culls them from SoA positions before
+ * any entity is dereferenced.
+ */
+@Mixin(ExplosionImpl.class)
+public abstract class ExplosionEntityScanMixin {
+
+    @Shadow @Final private Vec3d pos;
+    @Shadow @Final private float power;
+
+    @Redirect(method = "damageEntities", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/server/world/ServerWorld;getOtherEntities(Lnet/minecraft/entity/Entity;Lnet/minecraft/util/math/Box;)Ljava/util/List;"))
+    private List<Entity> flatcollision$scanExplosionTargets(ServerWorld world, @Nullable Entity except, Box box) {
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(world);
+        if (engine == null || ShadowVerifier.isBypassing()) {
+            return world.getOtherEntities(except, box);
+        }
+
+        boolean timed = QueryTimer.isEnabled();
+        if (timed) QueryTimer.begin();
+        List<Entity> targets = engine.getExplosionTargets(except, box, pos.x, pos.y, pos.z, power * 2.0f);
+        if (timed) QueryTimer.end();
+        return targets;
+    }
+}
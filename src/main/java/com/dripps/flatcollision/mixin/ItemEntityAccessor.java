@@ -0,0 +1,16 @@
+package com.dripps.flatcollision.mixin;
+
+import net.minecraft.entity.ItemEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/** reaches the private merge rules of item entities for the merge pass */
+@Mixin(ItemEntity.class)
+public interface ItemEntityAccessor {
+
+    @Invoker("canMerge")
+    boolean flatcollision$canMerge();
+
+    @Invoker("tryMerge")
+    void flatcollision$tryMerge(ItemEntity other);
+}
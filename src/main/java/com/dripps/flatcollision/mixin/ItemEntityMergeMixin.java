@@ -0,0 +1,26 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.ShadowVerifier;
+import net.minecraft.entity.ItemEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/** hands the item's own merge query over to the engine's merge pass */
+@Mixin(ItemEntity.class)
+public abstract class ItemEntityMergeMixin {
+
+    @Inject(method = "tryMerge()V", at = @At("HEAD"), cancellable = true)
+    private void flatcollision$deferMerge(CallbackInfo ci) {
+        ItemEntity self = (ItemEntity) (Object) this;
+        if (ShadowVerifier.isBypassing()) return;
+
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(self.getEntityWorld());
+        if (engine == null) return;
+
+        engine.mergePass().requestItemMerge(self);
+        ci.cancel();
+    }
+}
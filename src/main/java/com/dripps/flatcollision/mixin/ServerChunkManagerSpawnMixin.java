@@ -0,0 +1,36 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.ShadowVerifier;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.SpawnDensityCapper;
+import net.minecraft.world.SpawnHelper;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Redirect;
+
+/**
+ * builds the per tick spawn info from the grid's spawn group counters
+ * instead of iterating every entity of the world.
+ */
+@Mixin(ServerChunkManager.class)
+public abstract class ServerChunkManagerSpawnMixin {
+
+    @Shadow @Final ServerWorld world;
+
+    @Redirect(method = "tickChunks", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/world/SpawnHelper;setupSpawn(ILjava/lang/Iterable;Lnet/minecraft/world/SpawnHelper$ChunkSource;Lnet/minecraft/world/SpawnDensityCapper;)Lnet/minecraft/world/SpawnHelper$Info;"))
+    private SpawnHelper.Info flatcollision$setupSpawnFromGrid(int spawningChunkCount, Iterable<Entity> entities,
+                                                           SpawnHelper.ChunkSource chunkSource,
+                                                           SpawnDensityCapper densityCapper) {
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(world);
+        if (engine == null || ShadowVerifier.isBypassing()) {
+            return SpawnHelper.setupSpawn(spawningChunkCount, entities, chunkSource, densityCapper);
+        }
+        return engine.setupSpawn(spawningChunkCount, chunkSource, densityCapper);
+    }
+}
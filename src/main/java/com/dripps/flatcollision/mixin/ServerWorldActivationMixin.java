@@ -0,0 +1,33 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.FlatcollisionConfig;
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * gives mobs the activation pass marked inactive a minimal tick: last
+ * position and age advance like in tickEntity, so clients interpolate from
+ * the right place and age based timers keep running, while entity.tick with
+ * its AI and movement is skipped. only root entities come through
+ * tickEntity, passengers tick with their vehicle.
+ */
+@Mixin(ServerWorld.class)
+public abstract class ServerWorldActivationMixin {
+
+    @Inject(method = "tickEntity", at = @At("HEAD"), cancellable = true)
+    private void flatcollision$skipInactiveEntity(Entity entity, CallbackInfo ci) {
+        if (!FlatcollisionConfig.activationRange) return;
+
+        PhysicsEngine engine = PhysicsEngine.redirectTarget((ServerWorld) (Object) this);
+        if (engine != null && engine.activationRange().shouldSkip(entity)) {
+            entity.resetPosition();
+            entity.age++;
+            ci.cancel();
+        }
+    }
+}
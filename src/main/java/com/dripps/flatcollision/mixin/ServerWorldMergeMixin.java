@@ -0,0 +1,25 @@
+package com.dripps.flatcollision.mixin;
+
+import com.dripps.flatcollision.engine.PhysicsEngine;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * runs the item and orb merge sweep between entity and block entity
+ * ticking, so entities that asked for a merge this tick merge this tick.
+ */
+@Mixin(ServerWorld.class)
+public abstract class ServerWorldMergeMixin {
+
+    @Inject(method = "tick", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/server/world/ServerWorld;tickBlockEntities()V"))
+    private void flatcollision$mergeAfterEntities(BooleanSupplier shouldKeepTicking, CallbackInfo ci) {
+        PhysicsEngine engine = PhysicsEngine.get((ServerWorld) (Object) this);
+        if (engine != null) engine.onEntitiesTicked();
+    }
+}
@@ -0,0 +1,22 @@
+package com.dripps.flatcollision.mixin;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.SpawnDensityCapper;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+import java.util.List;
+import java.util.Map;
+
+/** reaches the per player density counters so a cell's mobs are added at once */
+@Mixin(SpawnDensityCapper.class)
+public interface SpawnDensityCapperAccessor {
+
+    @Accessor("playersToDensityMap")
+    Map<ServerPlayerEntity, ?> flatcollision$getPlayersToDensityMap();
+
+    @Invoker("getMobSpawnablePlayers")
+    List<ServerPlayerEntity> flatcollision$getMobSpawnablePlayers(ChunkPos chunkPos);
+}
@@ -0,0 +1,14 @@
+package com.dripps.flatcollision.mixin;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import net.minecraft.entity.SpawnGroup;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+/** density per spawn group of one player, the counter class is package private */
+@Mixin(targets = "net.minecraft.world.SpawnDensityCapper$DensityCounter")
+public interface SpawnDensityCounterAccessor {
+
+    @Accessor("groupsToDensity")
+    Object2IntMap<SpawnGroup> flatcollision$getGroupsToDensity();
+}
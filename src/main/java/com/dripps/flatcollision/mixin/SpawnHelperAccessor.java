@@ -0,0 +1,18 @@
+package com.dripps.flatcollision.mixin;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.SpawnHelper;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.Chunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/** reaches the private biome lookup spawn costs are read from */
+@Mixin(SpawnHelper.class)
+public interface SpawnHelperAccessor {
+
+    @Invoker("getBiomeDirectly")
+    static Biome flatcollision$getBiomeDirectly(BlockPos pos, Chunk chunk) {
+        throw new AssertionError();
+    }
+}
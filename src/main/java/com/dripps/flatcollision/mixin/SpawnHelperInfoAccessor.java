@@ -0,0 +1,22 @@
+package com.dripps.flatcollision.mixin;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.SpawnGroup;
+import net.minecraft.util.math.GravityField;
+import net.minecraft.world.SpawnDensityCapper;
+import net.minecraft.world.SpawnHelper;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/** builds spawn info from counts the engine collected */
+@Mixin(SpawnHelper.Info.class)
+public interface SpawnHelperInfoAccessor {
+
+    @Invoker("<init>")
+    static SpawnHelper.Info flatcollision$create(int spawningChunkCount,
+                                                 Object2IntOpenHashMap<SpawnGroup> groupToCount,
+                                                 GravityField potentials,
+                                                 SpawnDensityCapper densityCapper) {
+        throw new AssertionError();
+    }
+}
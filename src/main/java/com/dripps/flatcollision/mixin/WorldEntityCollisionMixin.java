@@ -1,8 +1,9 @@
 package com.dripps.flatcollision.mixin;
 
 import com.dripps.flatcollision.engine.PhysicsEngine;
+import com.dripps.flatcollision.engine.QueryTimer;
+import com.dripps.flatcollision.engine.ShadowVerifier;
 import net.minecraft.entity.Entity;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.Box;
 import net.minecraft.world.World;
 import org.jetbrains.annotations.Nullable;
@@ -16,8 +17,9 @@ import java.util.function.Predicate;
 
 /**
  * redirects vanilla entity spatial queries to flatcollision engine. targets
- * getOtherEntities and getEntityCollisions. only active for server worlds
- * with registered physics engine, otherwise falls through to vanilla.
+ * getOtherEntities and getEntityCollisions. only active for worlds (server or
+ * client) with registered physics engine, otherwise falls through to vanilla.
+ * sampled queries are shadowed by vanilla, see {@link ShadowVerifier}.
  */
 @Mixin(World.class)
 public abstract class WorldEntityCollisionMixin {
@@ -28,12 +30,27 @@ public abstract class WorldEntityCollisionMixin {
             @Nullable Entity except, Box box, Predicate<? super Entity> predicate,
             CallbackInfoReturnable<List<Entity>> cir) {
 
+        boolean timed = QueryTimer.isEnabled();
+        if (timed) QueryTimer.begin();
+
         World self = (World) (Object) this;
-        if (!(self instanceof ServerWorld serverWorld)) return;
+        if (ShadowVerifier.isBypassing()) return;
+
+        PhysicsEngine engine = PhysicsEngine.redirectTarget(self);
+        if (engine == null) return;
+
+        cir.setReturnValue(ShadowVerifier.shouldSample()
+                ? ShadowVerifier.otherEntities(self, engine, except, box, predicate)
+                : engine.getEntitiesInBox(except, box, predicate));
+        if (timed) QueryTimer.end();
+    }
 
-        PhysicsEngine engine = PhysicsEngine.get(serverWorld);
-        if (engine == null || !engine.isActive()) return;
+    /** closes query timing for the vanilla path, redirected path never gets here */
+    @Inject(method = "getOtherEntities", at = @At("RETURN"))
+    private void flatcollision$timeVanillaGetOtherEntities(
+            @Nullable Entity except, Box box, Predicate<? super Entity> predicate,
+            CallbackInfoReturnable<List<Entity>> cir) {
 
-        cir.setReturnValue(engine.getEntitiesInBox(except, box, predicate));
+        if (QueryTimer.isEnabled()) QueryTimer.end();
     }
 }
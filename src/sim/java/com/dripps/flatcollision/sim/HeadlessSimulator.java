@@ -0,0 +1,133 @@
+package com.dripps.flatcollision.sim;
+
+import com.dripps.flatcollision.core.PhysicsCore;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * headless load test for the game independent physics core. drives synthetic
+ * workloads at large body counts and prints MSPT equivalent timings (core
+ * tick start + per body queries + tick end), no server needed.
+ *
+ * args: --scenario=spread,cramming,farm --bodies=10000,50000,100000,200000
+ *       --ticks=100 --warmup=20 --seed=42 --deferred
+ */
+public final class HeadlessSimulator {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    private HeadlessSimulator() {}
+
+    public static void main(String[] args) {
+        List<Workload> workloads = List.of(Workload.values());
+        int[] bodyCounts = {10_000, 50_000, 100_000, 200_000};
+        int ticks = 100;
+        int warmup = 20;
+        long seed = 42;
+        boolean deferred = false;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "--scenario" -> {
+                    List<Workload> picked = new ArrayList<>();
+                    for (String name : value.split(",")) {
+                        picked.add(Workload.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                    }
+                    workloads = picked;
+                }
+                case "--bodies" -> bodyCounts = Arrays.stream(value.split(","))
+                        .mapToInt(v -> Integer.parseInt(v.trim())).toArray();
+                case "--ticks" -> ticks = Integer.parseInt(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--deferred" -> deferred = true;
+                default -> throw new IllegalArgumentException("unknown argument: " + arg);
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "FlatCollision headless simulator  ticks=%d warmup=%d seed=%d deferred=%s%n",
+                ticks, warmup, seed, deferred);
+        System.out.printf(Locale.ROOT, "%-9s %8s %9s %9s %9s %10s %10s %10s %12s%n",
+                "scenario", "bodies", "sync ms", "query ms", "end ms", "mspt avg", "mspt p95", "mspt max", "hits/tick");
+
+        for (Workload workload : workloads) {
+            for (int count : bodyCounts) {
+                run(workload, count, ticks, warmup, seed, deferred);
+            }
+        }
+    }
+
+    private static void run(Workload workload, int count, int ticks, int warmup, long seed, boolean deferred) {
+        PhysicsCore<SimBody> core = new PhysicsCore<>(deferred);
+        Workload.State state = new Workload.State(core, seed);
+        workload.setup(state, count);
+
+        IntArrayList hits = new IntArrayList(256);
+        long[] totals = new long[ticks];
+        long syncNanos = 0, queryNanos = 0, endNanos = 0, hitCount = 0;
+
+        for (int tick = -warmup; tick < ticks; tick++) {
+            workload.step(state, tick);
+
+            long t0 = System.nanoTime();
+            core.tickStart();
+            long t1 = System.nanoTime();
+
+            // per body queries as vanilla issues them: cramming push check on
+            // the body box, then movement collision on the box stretched by velocity
+            long tickHits = 0;
+            for (SimBody b : state.bodies) {
+                double hw = b.width / 2.0;
+                double minX = b.x - hw, maxX = b.x + hw;
+                double minY = b.y, maxY = b.y + b.height;
+                double minZ = b.z - hw, maxZ = b.z + hw;
+
+                hits.clear();
+                core.collectOverlapping(minX, minY, minZ, maxX, maxY, maxZ, hits);
+                tickHits += hits.size();
+
+                hits.clear();
+                core.collectOverlapping(
+                        Math.min(minX, minX + b.vx), Math.min(minY, minY + b.vy), Math.min(minZ, minZ + b.vz),
+                        Math.max(maxX, maxX + b.vx), Math.max(maxY, maxY + b.vy), Math.max(maxZ, maxZ + b.vz),
+                        hits);
+                tickHits += hits.size();
+            }
+            long t2 = System.nanoTime();
+
+            core.tickEnd();
+            long t3 = System.nanoTime();
+
+            if (tick >= 0) {
+                syncNanos += t1 - t0;
+                queryNanos += t2 - t1;
+                endNanos += t3 - t2;
+                totals[tick] = t3 - t0;
+                hitCount += tickHits;
+            }
+        }
+
+        core.shutdown();
+
+        long[] sorted = totals.clone();
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long t : sorted) sum += t;
+
+        System.out.printf(Locale.ROOT, "%-9s %8d %9.3f %9.3f %9.3f %10.3f %10.3f %10.3f %12d%n",
+                workload.name().toLowerCase(Locale.ROOT), count,
+                syncNanos / NANOS_PER_MS / ticks,
+                queryNanos / NANOS_PER_MS / ticks,
+                endNanos / NANOS_PER_MS / ticks,
+                sum / NANOS_PER_MS / ticks,
+                sorted[Math.min(ticks - 1, (int) Math.ceil(ticks * 0.95) - 1)] / NANOS_PER_MS,
+                sorted[ticks - 1] / NANOS_PER_MS,
+                hitCount / ticks);
+    }
+}
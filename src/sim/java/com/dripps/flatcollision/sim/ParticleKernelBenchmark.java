@@ -0,0 +1,123 @@
+package com.dripps.flatcollision.sim;
+
+import com.dripps.flatcollision.client.particle.ParticleKernel;
+import com.dripps.flatcollision.client.particle.ParticleKernels;
+import com.dripps.flatcollision.client.particle.RingBuffer;
+import com.dripps.flatcollision.client.particle.ScalarParticleKernel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * compares particle integration kernels on ring buffers filled to a given
+ * density. every tick also re-emits what expired so the alive count stays
+ * steady. the vector kernel only shows up when the JVM was started with
+ * --add-modules jdk.incubator.vector.
+ *
+ * --kernel runs a single kernel per JVM, which keeps call sites monomorphic.
+ *
+ * args: --rings=64 --fill=64,512,2048 --ticks=2000 --warmup=500 --seed=42
+ *       --kernel=scalar|vector
+ */
+public final class ParticleKernelBenchmark {
+
+    private static final int RING_CAPACITY = 2048;
+    /** typical vanilla velocity multiplier, exercises the drag column */
+    private static final float DRAG = 0.98f;
+
+    private ParticleKernelBenchmark() {}
+
+    public static void main(String[] args) {
+        int rings = 64;
+        int[] fills = {64, 512, 2048};
+        int ticks = 2000;
+        int warmup = 500;
+        long seed = 42;
+        String only = null;
+
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "--rings" -> rings = Integer.parseInt(value);
+                case "--fill" -> fills = Arrays.stream(value.split(","))
+                        .mapToInt(v -> Integer.parseInt(v.trim())).toArray();
+                case "--ticks" -> ticks = Integer.parseInt(value);
+                case "--warmup" -> warmup = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--kernel" -> only = value;
+                default -> throw new IllegalArgumentException("unknown argument: " + arg);
+            }
+        }
+
+        List<ParticleKernel> kernels = new ArrayList<>();
+        if (only == null || only.equals("scalar")) {
+            kernels.add(ScalarParticleKernel.INSTANCE);
+        }
+        if (only == null || only.equals("vector")) {
+            ParticleKernel vector = ParticleKernels.select(true);
+            if (vector != ScalarParticleKernel.INSTANCE) {
+                kernels.add(vector);
+            } else {
+                System.out.println("vector kernel unavailable, run with --add-modules jdk.incubator.vector");
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "FlatCollision particle kernel benchmark  rings=%d ticks=%d warmup=%d seed=%d%n",
+                rings, ticks, warmup, seed);
+        System.out.printf(Locale.ROOT, "%-14s %8s %12s %12s %10s%n",
+                "kernel", "fill", "ms/tick", "ns/particle", "speedup");
+
+        for (int fill : fills) {
+            double baseline = Double.NaN;
+            for (ParticleKernel kernel : kernels) {
+                double msPerTick = run(kernel, rings, Math.min(fill, RING_CAPACITY), ticks, warmup, seed);
+                if (kernel == ScalarParticleKernel.INSTANCE) baseline = msPerTick;
+                double nsPerParticle = msPerTick * 1_000_000.0 / ((double) rings * fill);
+                System.out.printf(Locale.ROOT, "%-14s %8d %12.4f %12.3f %9.2fx%n",
+                        kernel.name(), fill, msPerTick, nsPerParticle,
+                        Double.isNaN(baseline) ? 1.0 : baseline / msPerTick);
+            }
+        }
+    }
+
+    private static double run(ParticleKernel kernel, int ringCount, int fill,
+                              int ticks, int warmup, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        RingBuffer[] rings = new RingBuffer[ringCount];
+        for (int r = 0; r < ringCount; r++) {
+            rings[r] = new RingBuffer(RING_CAPACITY);
+            // spread emits over the ring so alive slots are not contiguous
+            for (int i = 0; i < RING_CAPACITY; i++) {
+                emit(rings[r], random, i % (RING_CAPACITY / fill) == 0 ? 20 + random.nextInt(60) : 1);
+            }
+            rings[r].tick(kernel);
+        }
+
+        long total = 0;
+        for (int t = 0; t < warmup + ticks; t++) {
+            long start = System.nanoTime();
+            for (RingBuffer ring : rings) {
+                ring.tick(kernel);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (t >= warmup) total += elapsed;
+
+            for (RingBuffer ring : rings) {
+                while (ring.aliveCount() < fill) {
+                    emit(ring, random, 20 + random.nextInt(60));
+                }
+            }
+        }
+        return total / (double) ticks / 1_000_000.0;
+    }
+
+    private static void emit(RingBuffer ring, SplittableRandom random, int lifetime) {
+        ring.emit((float) random.nextDouble(0, 64), (float) random.nextDouble(60, 120), (float) random.nextDouble(0, 64),
+                (float) random.nextDouble(-0.2, 0.2), (float) random.nextDouble(0, 0.3), (float) random.nextDouble(-0.2, 0.2),
+                lifetime, RingBuffer.DEFAULT_GRAVITY, DRAG);
+    }
+}
@@ -0,0 +1,110 @@
+package com.dripps.flatcollision.sim;
+
+import com.dripps.flatcollision.FlatcollisionConfig;
+import com.dripps.flatcollision.client.particle.SectorGrid;
+
+/**
+ * checks sector eviction bookkeeping: evicting more sectors than the buffer
+ * pool holds, dropping resized rings instead of pooling them, reusing pooled
+ * rings without leftover particles, and clearAll releasing everything. slot
+ * accounting must match the sectors left after each step. exits with status
+ * 1 on failure.
+ *
+ * args: --sectors=20
+ */
+public final class SectorEvictionCheck {
+
+    private static final int LIFETIME = 1000;
+    /** enough ticks for one ring sizing pass */
+    private static final int RESIZE_TICKS = 20;
+
+    private static int failures;
+
+    private SectorEvictionCheck() {}
+
+    public static void main(String[] args) {
+        int sectors = 20;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            String value = kv.length > 1 ? kv[1] : "";
+            switch (kv[0]) {
+                case "--sectors" -> sectors = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("unknown argument: " + arg);
+            }
+        }
+
+        FlatcollisionConfig.particleLod = false;
+        FlatcollisionConfig.particleEmitBudget = 0;
+
+        checkEviction(sectors);
+        checkResizedEviction();
+        checkClearAll(sectors);
+
+        if (failures > 0) {
+            System.out.println("FlatCollision sector eviction check: " + failures + " failed");
+            System.exit(1);
+        }
+        System.out.println("FlatCollision sector eviction check: ok");
+    }
+
+    /** fills sectors, then one emit with a budget of one evicts all of them at once */
+    private static void checkEviction(int sectors) {
+        FlatcollisionConfig.particleSectorBudget = sectors + 1;
+        SectorGrid grid = new SectorGrid();
+        fill(grid, 0, sectors);
+
+        FlatcollisionConfig.particleSectorBudget = 1;
+        grid.emit(-SectorGrid.SECTOR_SIZE * 8, 0, 0, 0, 0, 0, LIFETIME);
+
+        expect(grid.evictedCount() == sectors, "evicted " + grid.evictedCount() + " of " + sectors + " sectors");
+        expect(grid.sectorCount() == 1, grid.sectorCount() + " sector left");
+        expect(grid.pooledCount() < sectors, "pool of " + grid.pooledCount() + " dropped some rings");
+        expect(grid.slotsInUse() == SectorGrid.INITIAL_RING_CAPACITY, grid.slotsInUse() + " slots in use");
+        expect(grid.totalAlive() == 1, grid.totalAlive() + " particle alive after eviction");
+
+        // new sectors take pooled rings, none may bring old particles along
+        FlatcollisionConfig.particleSectorBudget = sectors + 1;
+        int reused = grid.pooledCount();
+        fill(grid, sectors, reused);
+        expect(grid.pooledCount() == 0, "pooled rings reused");
+        expect(grid.totalAlive() == 1 + reused, grid.totalAlive() + " alive in " + (1 + reused) + " sectors");
+    }
+
+    /** grows one ring by emission pressure, then evicts it */
+    private static void checkResizedEviction() {
+        FlatcollisionConfig.particleSectorBudget = 2;
+        SectorGrid grid = new SectorGrid();
+        for (int i = 0; i < SectorGrid.INITIAL_RING_CAPACITY * 2; i++) {
+            grid.emit(8, 8, 8, 0, 0, 0, LIFETIME);
+        }
+        for (int t = 0; t < RESIZE_TICKS; t++) grid.tick();
+        expect(grid.slotsInUse() > SectorGrid.INITIAL_RING_CAPACITY, "ring grew to " + grid.slotsInUse() + " slots");
+
+        FlatcollisionConfig.particleSectorBudget = 1;
+        grid.emit(-SectorGrid.SECTOR_SIZE * 8, 0, 0, 0, 0, 0, LIFETIME);
+        expect(grid.pooledCount() == 0, "resized ring not pooled");
+        expect(grid.slotsInUse() == SectorGrid.INITIAL_RING_CAPACITY, grid.slotsInUse() + " slots in use after eviction");
+    }
+
+    private static void checkClearAll(int sectors) {
+        FlatcollisionConfig.particleSectorBudget = sectors + 1;
+        SectorGrid grid = new SectorGrid();
+        fill(grid, 0, sectors);
+        grid.clearAll();
+        expect(grid.sectorCount() == 0 && grid.pooledCount() == 0, "clearAll released sectors and pool");
+        expect(grid.slotsInUse() == 0 && grid.memoryBytes() == 0, "clearAll released slots and memory");
+        expect(grid.totalAlive() == 0, "no particles after clearAll");
+    }
+
+    /** one particle in each of count sectors along x, starting at sector first */
+    private static void fill(SectorGrid grid, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            grid.emit(i * SectorGrid.SECTOR_SIZE + 8, 8, 8, 0, 0, 0, LIFETIME);
+        }
+    }
+
+    private static void expect(boolean condition, String what) {
+        System.out.println((condition ? "  ok    " : "  FAIL  ") + what);
+        if (!condition) failures++;
+    }
+}
@@ -0,0 +1,37 @@
+package com.dripps.flatcollision.sim;
+
+import com.dripps.flatcollision.core.PhysicsBody;
+
+/**
+ * plain synthetic body for the headless simulator. workloads move it directly,
+ * the core only sees it through {@link PhysicsBody}.
+ */
+final class SimBody implements PhysicsBody {
+
+    final int id;
+    double x, y, z;
+    double vx, vy, vz;
+    final double width;
+    final double height;
+    boolean alive = true;
+
+    SimBody(int id, double x, double y, double z, double width, double height) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override public int bodyId()        { return id; }
+    @Override public double bodyX()      { return x; }
+    @Override public double bodyY()      { return y; }
+    @Override public double bodyZ()      { return z; }
+    @Override public double bodyVelX()   { return vx; }
+    @Override public double bodyVelY()   { return vy; }
+    @Override public double bodyVelZ()   { return vz; }
+    @Override public double bodyWidth()  { return width; }
+    @Override public double bodyHeight() { return height; }
+    @Override public boolean isBodyAlive() { return alive; }
+}
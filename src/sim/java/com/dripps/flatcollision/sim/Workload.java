@@ -0,0 +1,156 @@
+package com.dripps.flatcollision.sim;
+
+import com.dripps.flatcollision.core.PhysicsCore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * synthetic entity layouts for the headless simulator. each workload places
+ * bodies once and then moves them every tick the way its in game counterpart
+ * would, all positions are plain fields on {@link SimBody}.
+ */
+enum Workload {
+
+    /** mobs wandering over open terrain, roughly four per chunk */
+    SPREAD {
+        @Override
+        void setup(State s, int count) {
+            double side = Math.sqrt(count * 64.0);
+            s.minX = s.minZ = 0;
+            s.maxX = s.maxZ = side;
+            for (int i = 0; i < count; i++) {
+                SimBody b = s.spawn(s.rng.nextDouble(side), 64, s.rng.nextDouble(side), 0.9, 1.4);
+                b.vx = s.rng.nextDouble(-0.1, 0.1);
+                b.vz = s.rng.nextDouble(-0.1, 0.1);
+            }
+        }
+
+        @Override
+        void step(State s, int tick) {
+            for (SimBody b : s.bodies) {
+                if (s.rng.nextInt(40) == 0) {
+                    b.vx = s.rng.nextDouble(-0.1, 0.1);
+                    b.vz = s.rng.nextDouble(-0.1, 0.1);
+                }
+                s.moveBounded(b, s.minX, s.minZ, s.maxX, s.maxZ);
+            }
+        }
+    },
+
+    /** 24 mobs per 1x1 pen (vanilla cramming limit), pens every 8 blocks */
+    CRAMMING {
+        @Override
+        void setup(State s, int count) {
+            int pens = (count + PEN_SIZE - 1) / PEN_SIZE;
+            int row = (int) Math.ceil(Math.sqrt(pens));
+            for (int i = 0; i < count; i++) {
+                int pen = i / PEN_SIZE;
+                double px = (pen % row) * PEN_SPACING;
+                double pz = (pen / row) * PEN_SPACING;
+                s.spawn(px + s.rng.nextDouble(), 64, pz + s.rng.nextDouble(), 0.9, 1.4);
+            }
+        }
+
+        @Override
+        void step(State s, int tick) {
+            for (SimBody b : s.bodies) {
+                b.vx = s.rng.nextDouble(-0.05, 0.05);
+                b.vz = s.rng.nextDouble(-0.05, 0.05);
+                double penX = Math.floor(b.x / PEN_SPACING) * PEN_SPACING;
+                double penZ = Math.floor(b.z / PEN_SPACING) * PEN_SPACING;
+                s.moveBounded(b, penX, penZ, penX + 1, penZ + 1);
+            }
+        }
+    },
+
+    /** mob grinders: dense 8x8 kill chambers, 1% of each farm dies and respawns per tick */
+    FARM {
+        @Override
+        void setup(State s, int count) {
+            int farms = Math.max(1, count / FARM_SIZE);
+            int row = (int) Math.ceil(Math.sqrt(farms));
+            s.farmCount = farms;
+            s.farmRow = row;
+            for (int i = 0; i < count; i++) {
+                spawnInFarm(s, i % farms);
+            }
+        }
+
+        @Override
+        void step(State s, int tick) {
+            int deaths = Math.max(1, s.bodies.size() / 100);
+            List<SimBody> bodies = s.bodies;
+            for (int i = 0; i < deaths && !bodies.isEmpty(); i++) {
+                int victim = s.rng.nextInt(bodies.size());
+                SimBody dead = bodies.get(victim);
+                bodies.set(victim, bodies.get(bodies.size() - 1));
+                bodies.remove(bodies.size() - 1);
+                dead.alive = false;
+                s.core.untrack(dead);
+            }
+            for (int i = 0; i < deaths; i++) {
+                spawnInFarm(s, s.rng.nextInt(s.farmCount));
+            }
+
+            for (SimBody b : bodies) {
+                b.vy = -0.08;
+                double fx = Math.floor(b.x / FARM_SPACING) * FARM_SPACING;
+                double fz = Math.floor(b.z / FARM_SPACING) * FARM_SPACING;
+                s.moveBounded(b, fx, fz, fx + 8, fz + 8);
+                if (b.y < 64) b.y = 64;
+            }
+        }
+
+        private void spawnInFarm(State s, int farm) {
+            double fx = (farm % s.farmRow) * FARM_SPACING;
+            double fz = (farm / s.farmRow) * FARM_SPACING;
+            s.spawn(fx + s.rng.nextDouble(8), 64 + s.rng.nextDouble(4), fz + s.rng.nextDouble(8), 0.6, 1.95);
+        }
+    };
+
+    static final int PEN_SIZE = 24;
+    static final double PEN_SPACING = 8;
+    static final int FARM_SIZE = 1000;
+    static final double FARM_SPACING = 48;
+
+    /** places count bodies and queues them for tracking */
+    abstract void setup(State s, int count);
+
+    /** advances body positions by one tick, may kill and spawn bodies */
+    abstract void step(State s, int tick);
+
+    /** mutable simulation state shared by workloads and the driver */
+    static final class State {
+        final PhysicsCore<SimBody> core;
+        final SplittableRandom rng;
+        final List<SimBody> bodies = new ArrayList<>();
+        int nextId;
+        double minX, minZ, maxX, maxZ;
+        int farmCount, farmRow;
+
+        State(PhysicsCore<SimBody> core, long seed) {
+            this.core = core;
+            this.rng = new SplittableRandom(seed);
+        }
+
+        SimBody spawn(double x, double y, double z, double width, double height) {
+            SimBody b = new SimBody(nextId++, x, y, z, width, height);
+            bodies.add(b);
+            core.track(b);
+            return b;
+        }
+
+        /** integrates velocity and reflects off the given x/z bounds */
+        void moveBounded(SimBody b, double minX, double minZ, double maxX, double maxZ) {
+            b.x += b.vx;
+            b.y += b.vy;
+            b.z += b.vz;
+            if (b.x < minX) { b.x = minX; b.vx = -b.vx; }
+            if (b.x >= maxX) { b.x = Math.nextDown(maxX); b.vx = -b.vx; }
+            if (b.z < minZ) { b.z = minZ; b.vz = -b.vz; }
+            if (b.z >= maxZ) { b.z = Math.nextDown(maxZ); b.vz = -b.vz; }
+        }
+    }
+}